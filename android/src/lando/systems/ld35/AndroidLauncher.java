@@ -4,9 +4,16 @@ import android.os.Bundle;
 
 import com.badlogic.gdx.backends.android.AndroidApplication;
 import com.badlogic.gdx.backends.android.AndroidApplicationConfiguration;
+import lando.systems.ld35.ParticleSystem.DustEmitter;
+import lando.systems.ld35.ParticleSystem.ParticleManager;
+import lando.systems.ld35.gameobjects.LevelCache;
 import lando.systems.ld35.screens.AttractScreen;
 import lando.systems.ld35.screens.GameScreen;
 import lando.systems.ld35.screens.MenuScreen;
+import lando.systems.ld35.utils.QualityGovernor;
+import lando.systems.ld35.utils.SerialTaskRunner;
+import lando.systems.ld35.utils.TaskRunner;
+import lando.systems.ld35.utils.ThreadPoolTaskRunner;
 
 public class AndroidLauncher extends AndroidApplication implements ActionResolver {
 
@@ -24,6 +31,17 @@ public class AndroidLauncher extends AndroidApplication implements ActionResolve
 	public boolean playMusic = true;
 	public boolean showDebug = false;
 	public boolean unlockAll = false;
+	public int tickRate = LudumDare35.DEFAULT_TICK_RATE;
+	public int maxTicksPerFrame = LudumDare35.DEFAULT_MAX_TICKS_PER_FRAME;
+	public int targetFrameRate = LudumDare35.DEFAULT_TARGET_FRAME_RATE;
+	public float minQuality = QualityGovernor.DEFAULT_MIN_QUALITY;
+	public float maxQuality = QualityGovernor.DEFAULT_MAX_QUALITY;
+	public int minTickRate = LudumDare35.DEFAULT_TICK_RATE;
+	public int levelCacheSize = LevelCache.DEFAULT_SIZE_KB;
+	public int threads = Runtime.getRuntime().availableProcessors();
+	public int particleThreshold = ParticleManager.PARALLEL_THRESHOLD;
+	public int dustThreshold = DustEmitter.PARALLEL_THRESHOLD;
+	private TaskRunner taskRunner;
 
 	@Override
 	protected void onCreate (Bundle savedInstanceState) {
@@ -102,4 +120,59 @@ public class AndroidLauncher extends AndroidApplication implements ActionResolve
 		return unlockAll;
 	}
 
+	@Override
+	public int tickRate() {
+		return tickRate;
+	}
+
+	@Override
+	public int maxTicksPerFrame() {
+		return maxTicksPerFrame;
+	}
+
+	@Override
+	public int targetFrameRate() {
+		return targetFrameRate;
+	}
+
+	@Override
+	public float minQuality() {
+		return minQuality;
+	}
+
+	@Override
+	public float maxQuality() {
+		return maxQuality;
+	}
+
+	@Override
+	public int minTickRate() {
+		return minTickRate;
+	}
+
+	@Override
+	public int levelCacheSize() {
+		return levelCacheSize;
+	}
+
+	@Override
+	public TaskRunner taskRunner() {
+		if (taskRunner == null) {
+			// No pool to hold on to unless a threshold lets the parallel path run
+			boolean parallel = particleThreshold < Integer.MAX_VALUE || dustThreshold < Integer.MAX_VALUE;
+			taskRunner = threads > 1 && parallel ? new ThreadPoolTaskRunner(threads) : SerialTaskRunner.INSTANCE;
+		}
+		return taskRunner;
+	}
+
+	@Override
+	public int particleThreshold() {
+		return particleThreshold;
+	}
+
+	@Override
+	public int dustThreshold() {
+		return dustThreshold;
+	}
+
 }
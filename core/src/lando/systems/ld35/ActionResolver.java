@@ -1,5 +1,7 @@
 package lando.systems.ld35;
 
+import lando.systems.ld35.utils.TaskRunner;
+
 /**
  * Created by dsgraham on 3/9/17.
  */
@@ -18,4 +20,14 @@ public interface ActionResolver {
     boolean playMusic();
     boolean showDebug();
     boolean unlockAll();
+    int tickRate();
+    int maxTicksPerFrame();
+    int targetFrameRate();
+    float minQuality();
+    float maxQuality();
+    int minTickRate();
+    int levelCacheSize();
+    TaskRunner taskRunner();
+    int particleThreshold();
+    int dustThreshold();
 }
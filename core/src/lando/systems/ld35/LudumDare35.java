@@ -3,10 +3,14 @@ package lando.systems.ld35;
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Pools;
 import com.badlogic.gdx.utils.TimeUtils;
+import lando.systems.ld35.gameobjects.LevelLoader;
 import lando.systems.ld35.screens.BaseScreen;
 import lando.systems.ld35.screens.MenuScreen;
 import lando.systems.ld35.utils.Assets;
+import lando.systems.ld35.utils.QualityGovernor;
 import lando.systems.ld35.utils.SoundManager;
 
 
@@ -15,21 +19,38 @@ public class LudumDare35 extends ApplicationAdapter {
     public static LudumDare35 game;
     public static long startTime = 0l;
 
+    public static final int   DEFAULT_TICK_RATE           = 60;
+    public static final int   DEFAULT_MAX_TICKS_PER_FRAME = 5;
+    public static final int   DEFAULT_TARGET_FRAME_RATE   = 60;
+    // Longer frames than this (a breakpoint, a stall loading a level) are not caught up on
+    public static final float MAX_FRAME_TIME              = 0.25f;
+
+    private float tickAccumulator = 0f;
+    // The screen shown last frame, disposed once another replaces it
+    private BaseScreen shownScreen;
+
     public BaseScreen screen;
     public ActionResolver resolver;
+    public QualityGovernor quality;
+    public LevelLoader levels;
 
     public LudumDare35(ActionResolver actionResolver) {
         resolver = actionResolver;
+        quality = new QualityGovernor(resolver.targetFrameRate(), resolver.minQuality(), resolver.maxQuality(),
+                                      resolver.tickRate(), resolver.minTickRate());
     }
 
     @Override
     public void create() {
         Assets.load();
+        Assets.particles.taskRunner = resolver.taskRunner();
+        Assets.particles.parallelThreshold = resolver.particleThreshold();
         SoundManager.load(resolver.playMusic());
         float progress = 0f;
         do {
             progress = Assets.update();
         } while (progress != 1f);
+        levels = new LevelLoader(Pools.get(Rectangle.class), resolver.levelCacheSize());
         screen = new MenuScreen();
         game = this;
         startTime = TimeUtils.millis();
@@ -49,22 +70,51 @@ public class LudumDare35 extends ApplicationAdapter {
     @Override
     public void resume() {
         Assets.load();
+        Assets.particles.taskRunner = resolver.taskRunner();
+        Assets.particles.parallelThreshold = resolver.particleThreshold();
         SoundManager.load(resolver.playMusic());
         game = this;
     }
 
     @Override
     public void dispose() {
+        if (shownScreen != null && shownScreen != screen) shownScreen.dispose();
+        screen.dispose();
+        levels.dispose();
         Assets.dispose();
         SoundManager.dispose();
+        resolver.taskRunner().dispose();
     }
 
     @Override
     public void render() {
-        float dt = Math.min(Gdx.graphics.getDeltaTime(), 1f / 30f);
-        Assets.tween.update(dt);
-        SoundManager.update(dt);
-        screen.update(dt);
+        if (screen != shownScreen) {
+            if (shownScreen != null) shownScreen.dispose();
+            shownScreen = screen;
+        }
+        quality.update(Gdx.graphics.getRawDeltaTime());
+        Assets.particles.applyQuality(quality);
+
+        float tick = 1f / quality.getTickRate();
+        tickAccumulator += Math.min(Gdx.graphics.getDeltaTime(), MAX_FRAME_TIME);
+
+        levels.update();
+        screen.handleInput();
+        int ticks = 0;
+        while (tickAccumulator >= tick && ticks < resolver.maxTicksPerFrame()) {
+            Assets.tween.update(tick);
+            SoundManager.update(tick);
+            screen.beginTick();
+            screen.update(tick);
+            tickAccumulator -= tick;
+            ticks++;
+        }
+        // Too far behind to catch up, let the game slow down rather than spiral
+        if (tickAccumulator >= tick) {
+            tickAccumulator = tick * 0.999f;
+        }
+
+        screen.tickAlpha = tickAccumulator / tick;
         screen.render(Assets.batch);
     }
 
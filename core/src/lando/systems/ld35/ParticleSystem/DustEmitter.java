@@ -0,0 +1,187 @@
+package lando.systems.ld35.ParticleSystem;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.Pool;
+import lando.systems.ld35.gameobjects.LevelInfo;
+import lando.systems.ld35.utils.ForceField;
+import lando.systems.ld35.utils.HashRandom;
+import lando.systems.ld35.utils.QualityGovernor;
+import lando.systems.ld35.utils.SerialTaskRunner;
+import lando.systems.ld35.utils.SolidGrid;
+import lando.systems.ld35.utils.TaskRunner;
+import lando.systems.ld35.utils.ViewCuller;
+
+/**
+ * Dust motes blown around by the level's fans.
+ * Motes are only spawned in tiles where the wind is blowing, since anywhere else they stop and die straight away.
+ * The list of windy tiles is rebuilt whenever the wind changes.
+ *
+ * Past parallelThreshold motes, moving them is split into chunks for the task runner, the same way as
+ * ParticleManager; spawning and removing motes stay on the calling thread.
+ */
+public class DustEmitter {
+
+    // Matches the old spawn of a tenth of a mote per tile per frame at 60 fps, in the tiles where motes survived
+    public static final float DEFAULT_SPAWN_RATE = 6f;
+    public static final int   CHUNK_SIZE         = 512;
+    // Off until desktop:benchmark has found where the pool starts winning, see ActionResolver.dustThreshold()
+    public static final int   PARALLEL_THRESHOLD = Integer.MAX_VALUE;
+
+    private static final int   TILE_SIZE      = ForceField.TILE_SIZE;
+    private static final float STILL_AIR      = 1f;
+    private static final float MIN_SPEED2     = 50f;
+    private static final float JITTER         = 5f;
+
+    public float      spawnRate;
+    // Most trail points drawn per mote
+    public int        trailLength;
+    public TaskRunner taskRunner = SerialTaskRunner.INSTANCE;
+    public int        parallelThreshold = PARALLEL_THRESHOLD;
+    public int        seed;
+
+    private final Array<WindParticle> motes;
+    private final Pool<WindParticle>  pool;
+    private final IntArray            windyTiles;
+    private final Vector2             wind;
+    private final MoveTask            move;
+    private ForceField                field;
+    private int                       fieldVersion;
+    private float                     spawnAccumulator;
+    private int                       tick;
+
+    public DustEmitter() {
+        this(DEFAULT_SPAWN_RATE);
+    }
+
+    /**
+     * @param spawnRate motes per second for every windy tile
+     */
+    public DustEmitter(float spawnRate) {
+        this.spawnRate = spawnRate;
+        this.trailLength = WindParticle.DEFAULT_TRAIL_LENGTH;
+        motes = new Array<WindParticle>();
+        pool = new Pool<WindParticle>() {
+            @Override
+            protected WindParticle newObject() {
+                return new WindParticle();
+            }
+        };
+        windyTiles = new IntArray();
+        wind = new Vector2();
+        move = new MoveTask();
+        seed = MathUtils.random.nextInt();
+    }
+
+    public int size() {
+        return motes.size;
+    }
+
+    public WindParticle get(int index) {
+        return motes.get(index);
+    }
+
+    /**
+     * Adds one mote at a world position, wherever the wind is
+     */
+    public void emit(float x, float y) {
+        motes.add(pool.obtain().init(x, y));
+    }
+
+    public void update(float dt, LevelInfo level) {
+        update(dt, level.forceField, level.solidGrid);
+    }
+
+    public void update(float dt, ForceField forceField, SolidGrid solids) {
+        if (field != forceField || fieldVersion != forceField.windVersion) {
+            findWindyTiles(forceField);
+        }
+        spawn(dt);
+
+        tick++;
+        move.dt = dt;
+        if (motes.size >= parallelThreshold) {
+            taskRunner.run(motes.size, CHUNK_SIZE, move);
+        } else {
+            move(0, motes.size, dt);
+        }
+
+        for (int i = motes.size - 1; i >= 0; i--) {
+            WindParticle mote = motes.get(i);
+            if (mote.TTL < 0 || mote.vel.len2() < MIN_SPEED2 || solids.isSolidAt(mote.pos.x, mote.pos.y)) {
+                pool.free(motes.removeIndex(i));
+            }
+        }
+    }
+
+    /**
+     * Blows and moves the motes in [start, end); each mote only touches its own state
+     */
+    private void move(int start, int end, float dt) {
+        for (int i = start; i < end; i++) {
+            WindParticle mote = motes.get(i);
+            float windX = field.windX(mote.pos.x, mote.pos.y);
+            float windY = field.windY(mote.pos.x, mote.pos.y);
+            if (Math.abs(windX) > STILL_AIR || Math.abs(windY) > STILL_AIR) {
+                mote.vel.add((windX + HashRandom.range(seed, tick, i * 2, JITTER)) * dt * 10,
+                             (windY + HashRandom.range(seed, tick, i * 2 + 1, JITTER)) * dt * 10);
+            }
+            mote.update(dt);
+        }
+    }
+
+    private class MoveTask implements TaskRunner.ChunkTask {
+        float dt;
+
+        @Override
+        public void run(int start, int end) {
+            move(start, end, dt);
+        }
+    }
+
+    private void spawn(float dt) {
+        if (windyTiles.size == 0) return;
+        spawnAccumulator += dt * spawnRate * windyTiles.size;
+        while (spawnAccumulator >= 1f) {
+            spawnAccumulator -= 1f;
+            int tile = windyTiles.get(MathUtils.random(windyTiles.size - 1));
+            float x = (tile % field.tilesWide + MathUtils.random()) * TILE_SIZE;
+            float y = (tile / field.tilesWide + MathUtils.random()) * TILE_SIZE;
+            emit(x, y);
+        }
+    }
+
+    private void findWindyTiles(ForceField forceField) {
+        field = forceField;
+        fieldVersion = forceField.windVersion;
+        windyTiles.clear();
+        for (int y = 0; y < field.tilesHigh; y++) {
+            for (int x = 0; x < field.tilesWide; x++) {
+                field.wind((x + 0.5f) * TILE_SIZE, (y + 0.5f) * TILE_SIZE, wind);
+                if (!wind.epsilonEquals(Vector2.Zero, STILL_AIR)) {
+                    windyTiles.add(x + y * field.tilesWide);
+                }
+            }
+        }
+    }
+
+    public void addTrails(TrailMesh mesh, ViewCuller culler) {
+        for (int i = 0; i < motes.size; i++) {
+            motes.get(i).addTrail(mesh, culler, trailLength);
+        }
+    }
+
+    public void applyQuality(QualityGovernor quality) {
+        spawnRate = quality.scale(DEFAULT_SPAWN_RATE);
+        trailLength = quality.scale(WindParticle.DEFAULT_TRAIL_LENGTH);
+    }
+
+    public void clear() {
+        pool.freeAll(motes);
+        motes.clear();
+        spawnAccumulator = 0;
+    }
+
+}
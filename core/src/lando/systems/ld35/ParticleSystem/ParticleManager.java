@@ -1,66 +1,246 @@
 package lando.systems.ld35.ParticleSystem;
 
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.Pool;
 import lando.systems.ld35.gameobjects.LevelInfo;
+import lando.systems.ld35.utils.ForceField;
+import lando.systems.ld35.utils.HashRandom;
+import lando.systems.ld35.utils.QualityGovernor;
+import lando.systems.ld35.utils.SerialTaskRunner;
+import lando.systems.ld35.utils.TaskRunner;
+import lando.systems.ld35.utils.ViewCuller;
 
 /**
- * Created by Doug on 4/18/2016.
+ * Fixed capacity particle store, one primitive array per attribute.
+ * Live particles are packed into [0, count); a dead one is replaced by the last, so nothing is ever allocated
+ * after construction. Emitting into a full store drops the new particle.
+ *
+ * Once there are at least parallelThreshold particles, the per particle step is split into CHUNK_SIZE chunks
+ * and handed to the task runner; dead particles are only packed away afterwards, on the calling thread.
+ * Wind jitter is hashed from the seed, the tick and the particle's slot, so the result is the same however
+ * the chunks were run.
  */
 public class ParticleManager {
 
-    private final Array<Particle> activeParticles = new Array<Particle>();
+    public static final int   DEFAULT_CAPACITY   = 16384;
+    public static final float MAX_SPEED          = 200f;
+    public static final int   EXPLOSION_SIZE     = 200;
+    public static final int   CHUNK_SIZE         = 2048;
+    // Off until desktop:benchmark has found where the pool starts winning on multi-core hardware,
+    // see ActionResolver.particleThreshold()
+    public static final int   PARALLEL_THRESHOLD = Integer.MAX_VALUE;
 
-    private final Pool<Particle> particlePool = new Pool<Particle>() {
-        @Override
-        protected Particle newObject() {
-            return new Particle();
-        }
-    };
+    private static final float STILL_AIR = 1f;
+    private static final float JITTER    = 5f;
+
+    public final int capacity;
+    public int explosionSize = EXPLOSION_SIZE;
+    public TaskRunner taskRunner = SerialTaskRunner.INSTANCE;
+    public int parallelThreshold = PARALLEL_THRESHOLD;
+    public int seed;
+    private int count;
+    private int tick;
+
+    private final float[] x, y;
+    private final float[] velocityX, velocityY;
+    private final float[] accelX, accelY;
+    private final float[] life, totalLife;
+    private final float[] scale;
+    private final float[] startR, startG, startB, startA;
+    private final float[] endR, endG, endB, endA;
+
+    private final StepTask step;
 
     public ParticleManager(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ParticleManager(int capacity){
+        this.capacity = capacity;
+        x = new float[capacity];
+        y = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        accelX = new float[capacity];
+        accelY = new float[capacity];
+        life = new float[capacity];
+        totalLife = new float[capacity];
+        scale = new float[capacity];
+        startR = new float[capacity];
+        startG = new float[capacity];
+        startB = new float[capacity];
+        startA = new float[capacity];
+        endR = new float[capacity];
+        endG = new float[capacity];
+        endB = new float[capacity];
+        endA = new float[capacity];
+        step = new StepTask();
+        seed = MathUtils.random.nextInt();
+    }
+
+    public int size(){
+        return count;
+    }
 
+    public float getX(int index){
+        return x[index];
     }
 
+    public float getY(int index){
+        return y[index];
+    }
+
+    // ------------------------------------------------------------------------
+    // Emitters ---------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+     * Adds one particle that fades from the start color to the end color over its life.
+     * Returns false if the store is full.
+     */
+    public boolean emit(float posX, float posY, float velX, float velY, float accX, float accY,
+                        Color start, Color end, float size, float ttl){
+        if (count == capacity) return false;
+        int i = count++;
+        x[i] = posX;
+        y[i] = posY;
+        velocityX[i] = velX;
+        velocityY[i] = velY;
+        accelX[i] = accX;
+        accelY[i] = accY;
+        life[i] = ttl;
+        totalLife[i] = ttl;
+        scale[i] = size;
+        startR[i] = start.r;
+        startG[i] = start.g;
+        startB[i] = start.b;
+        startA[i] = start.a;
+        endR[i] = end.r;
+        endG[i] = end.g;
+        endB[i] = end.b;
+        endA[i] = end.a;
+        return true;
+    }
+
+    private static final Color EXPLOSION_START = new Color(1, 0, 0, 1);
+    private static final Color EXPLOSION_END   = new Color(1, 0, 0, 0);
+
     public void addExplosion(Vector2 pos, Vector2 vel){
-        for (int i = 0; i < 200; i ++){
-            Particle part = particlePool.obtain();
+        for (int i = 0; i < explosionSize; i ++){
             float speed = MathUtils.random() * 50;
             float dir = MathUtils.random(360f);
-            float x = pos.x + .3f + (MathUtils.random()/3f);
-            part.init(new Vector2(x, pos.y), new Vector2(vel.x + MathUtils.sinDeg(dir) * speed, vel.y + MathUtils.cosDeg(dir) * speed ), new Vector2(0,-50f),
-                    new Color(1,0,0,1), new Color(1,0,0,0), 2f, 4);
-            activeParticles.add(part);
+            float px = pos.x + .3f + (MathUtils.random()/3f);
+            if (!emit(px, pos.y, vel.x + MathUtils.sinDeg(dir) * speed, vel.y + MathUtils.cosDeg(dir) * speed, 0, -50f,
+                      EXPLOSION_START, EXPLOSION_END, 2f, 4)) return;
         }
     }
 
+    // ------------------------------------------------------------------------
+    // Simulation -------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
     public void update(float dt, LevelInfo level){
-        int len = activeParticles.size;
-        for (int i = len -1; i >= 0; i--){
-            Particle part = activeParticles.get(i);
-            part.update(dt, level);
-            if (part.timeToLive <= 0){
-                activeParticles.removeIndex(i);
-                particlePool.free(part);
+        update(dt, level.forceField);
+    }
+
+    public void update(float dt, ForceField field){
+        tick++;
+        step.dt = dt;
+        step.field = field;
+        if (count >= parallelThreshold) {
+            taskRunner.run(count, CHUNK_SIZE, step);
+        } else {
+            step.run(0, count);
+        }
+        step.field = null;
+
+        int i = 0;
+        while (i < count){
+            if (life[i] <= 0){
+                moveLast(i);
+                continue;
             }
+            i++;
         }
     }
 
-    public void render(SpriteBatch batch){
-        for (Particle part : activeParticles){
-            part.render(batch);
+    /**
+     * Ages and moves the particles in [start, end), touching nothing outside of their slots
+     */
+    private void step(int start, int end, float dt, ForceField field){
+        for (int i = start; i < end; i++){
+            life[i] -= dt;
+            if (life[i] <= 0) continue;
+
+            float windX = field.windX(x[i], y[i]);
+            float windY = field.windY(x[i], y[i]);
+            if (Math.abs(windX) > STILL_AIR || Math.abs(windY) > STILL_AIR) {
+                velocityX[i] += (windX + HashRandom.range(seed, tick, i * 2, JITTER)) * dt * 10;
+                velocityY[i] += (windY + HashRandom.range(seed, tick, i * 2 + 1, JITTER)) * dt * 10;
+            }
+            velocityX[i] = MathUtils.clamp(velocityX[i] + accelX[i] * dt, -MAX_SPEED, MAX_SPEED);
+            velocityY[i] = MathUtils.clamp(velocityY[i] + accelY[i] * dt, -MAX_SPEED, MAX_SPEED);
+            x[i] += velocityX[i] * dt;
+            y[i] += velocityY[i] * dt;
         }
     }
 
-    public void clear(){
-        int len = activeParticles.size;
-        for (int i = len -1; i >= 0; i--){
-            Particle part = activeParticles.removeIndex(i);
-            particlePool.free(part);
+    private class StepTask implements TaskRunner.ChunkTask {
+        float      dt;
+        ForceField field;
+
+        @Override
+        public void run(int start, int end){
+            step(start, end, dt, field);
+        }
+    }
+
+    private void moveLast(int i){
+        int last = --count;
+        x[i] = x[last];
+        y[i] = y[last];
+        velocityX[i] = velocityX[last];
+        velocityY[i] = velocityY[last];
+        accelX[i] = accelX[last];
+        accelY[i] = accelY[last];
+        life[i] = life[last];
+        totalLife[i] = totalLife[last];
+        scale[i] = scale[last];
+        startR[i] = startR[last];
+        startG[i] = startG[last];
+        startB[i] = startB[last];
+        startA[i] = startA[last];
+        endR[i] = endR[last];
+        endG[i] = endG[last];
+        endB[i] = endB[last];
+        endA[i] = endA[last];
+    }
+
+    // ------------------------------------------------------------------------
+    // Rendering --------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+     * Adds every particle the culler can see to the mesh as a quad of its current color
+     */
+    public void addQuads(TrailMesh mesh, ViewCuller culler){
+        for (int i = 0; i < count; i++){
+            if (!culler.isVisible(x[i], y[i], scale[i], scale[i])) continue;
+            float t = life[i] / totalLife[i];
+            float color = Color.toFloatBits(endR[i] + (startR[i] - endR[i]) * t,
+                                            endG[i] + (startG[i] - endG[i]) * t,
+                                            endB[i] + (startB[i] - endB[i]) * t,
+                                            endA[i] + (startA[i] - endA[i]) * t);
+            mesh.addQuad(x[i], y[i], scale[i], scale[i], color);
         }
     }
+
+    public void applyQuality(QualityGovernor quality){
+        explosionSize = quality.scale(EXPLOSION_SIZE);
+    }
+
+    public void clear(){
+        count = 0;
+    }
 }
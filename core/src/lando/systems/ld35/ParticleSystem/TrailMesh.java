@@ -0,0 +1,142 @@
+package lando.systems.ld35.ParticleSystem;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * CPU side vertex array in SpriteBatch's layout (x, y, packed color, u, v for each corner of a quad),
+ * filled with particle quads and tapered trail ribbons, then handed to the batch in a single draw.
+ * Building vertices never touches GL, so it runs fine without a context.
+ */
+public class TrailMesh {
+
+    public static final int VERTEX_SIZE = 5;
+    public static final int QUAD_SIZE   = 4 * VERTEX_SIZE;
+
+    private float[] vertices;
+    private int     size;
+
+    private float u, v, u2, v2;
+
+    public TrailMesh(int initialQuads) {
+        vertices = new float[initialQuads * QUAD_SIZE];
+        setRegion(0, 0, 1, 1);
+    }
+
+    public void setRegion(TextureRegion region) {
+        setRegion(region.getU(), region.getV(), region.getU2(), region.getV2());
+    }
+
+    public void setRegion(float u, float v, float u2, float v2) {
+        this.u = u;
+        this.v = v;
+        this.u2 = u2;
+        this.v2 = v2;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public float[] getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Number of floats written so far
+     */
+    public int size() {
+        return size;
+    }
+
+    public int quadCount() {
+        return size / QUAD_SIZE;
+    }
+
+    public void draw(SpriteBatch batch, Texture texture) {
+        if (size > 0) batch.draw(texture, vertices, 0, size);
+    }
+
+    // ------------------------------------------------------------------------
+    // Building ---------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+     * An axis aligned quad with its bottom left at (x, y), the whole region stretched over it
+     */
+    public void addQuad(float x, float y, float width, float height, float color) {
+        ensureQuads(1);
+        vertex(x, y, color, u, v2);
+        vertex(x, y + height, color, u, v);
+        vertex(x + width, y + height, color, u2, v);
+        vertex(x + width, y, color, u2, v2);
+    }
+
+    /**
+     * A ribbon through count points, oldest first from index start, wrapping around the end of the arrays
+     * so a ring buffer can be passed as is. Width and alpha both ramp up linearly along the points,
+     * reaching width and alpha at the newest. The region is stretched across the ribbon,
+     * so a soft dot texture gives it soft edges.
+     */
+    public void addRibbon(float[] pointsX, float[] pointsY, int start, int count,
+                          float width, float r, float g, float b, float alpha) {
+        if (count < 2) return;
+        ensureQuads(count - 1);
+        float vMid = (v + v2) / 2;
+        float normalX = 0;
+        float normalY = 1;
+        float prevLeftX = 0, prevLeftY = 0, prevRightX = 0, prevRightY = 0, prevColor = 0;
+        for (int i = 0; i < count; i++) {
+            // Normal to the trail through this point, from its neighbours
+            int at = (start + i) % pointsX.length;
+            int before = (start + Math.max(i - 1, 0)) % pointsX.length;
+            int after = (start + Math.min(i + 1, count - 1)) % pointsX.length;
+            float dx = pointsX[after] - pointsX[before];
+            float dy = pointsY[after] - pointsY[before];
+            float length2 = dx * dx + dy * dy;
+            if (length2 > 0.0001f) {
+                float invLength = 1f / (float) Math.sqrt(length2);
+                normalX = -dy * invLength;
+                normalY = dx * invLength;
+            }
+
+            float t = (i + 1) / (float) count;
+            float half = width * t / 2;
+            float leftX = pointsX[at] + normalX * half;
+            float leftY = pointsY[at] + normalY * half;
+            float rightX = pointsX[at] - normalX * half;
+            float rightY = pointsY[at] - normalY * half;
+            float color = Color.toFloatBits(r, g, b, alpha * t);
+            if (i > 0) {
+                vertex(prevLeftX, prevLeftY, prevColor, u, vMid);
+                vertex(leftX, leftY, color, u, vMid);
+                vertex(rightX, rightY, color, u2, vMid);
+                vertex(prevRightX, prevRightY, prevColor, u2, vMid);
+            }
+            prevLeftX = leftX;
+            prevLeftY = leftY;
+            prevRightX = rightX;
+            prevRightY = rightY;
+            prevColor = color;
+        }
+    }
+
+    private void vertex(float x, float y, float color, float u, float v) {
+        vertices[size++] = x;
+        vertices[size++] = y;
+        vertices[size++] = color;
+        vertices[size++] = u;
+        vertices[size++] = v;
+    }
+
+    private void ensureQuads(int quads) {
+        int needed = size + quads * QUAD_SIZE;
+        if (needed <= vertices.length) return;
+        float[] grown = new float[Math.max(needed, vertices.length * 2)];
+        System.arraycopy(vertices, 0, grown, 0, size);
+        vertices = grown;
+    }
+
+}
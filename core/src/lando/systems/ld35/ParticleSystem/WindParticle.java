@@ -1,40 +1,56 @@
 package lando.systems.ld35.ParticleSystem;
 
-import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Pool;
-import com.badlogic.gdx.utils.Pools;
-import lando.systems.ld35.utils.Assets;
+import lando.systems.ld35.utils.ViewCuller;
 
 /**
  * Created by Doug on 4/16/2016.
+ *
+ * A dust mote and the trail behind it. The trail is a fixed size ring of points, oldest first,
+ * and a new point is only kept once the mote has moved trailSpacing away from the last one.
  */
-public class WindParticle {
+public class WindParticle implements Pool.Poolable {
+    public static final int   DEFAULT_TRAIL_LENGTH  = 64;
+    public static final float DEFAULT_TRAIL_SPACING = 2f;
+    public static final float TRAIL_WIDTH           = 3f;
+
     public Vector2 pos;
     public Vector2 vel;
     public float TTL;
 
     public static       float MAX_SPEED     = 100f;
-    Pool<Vector2> vector2Pool;
-    Array<Vector2> trail;
 
+    private final float[] trailX;
+    private final float[] trailY;
+    private final float   trailSpacing2;
+    private int           trailStart;
+    private int           trailSize;
 
-    public WindParticle(Vector2 p){
-        if (vector2Pool == null){
-            vector2Pool = Pools.get(Vector2.class);
-        }
-        pos = p;
+    public WindParticle(){
+        this(DEFAULT_TRAIL_LENGTH, DEFAULT_TRAIL_SPACING);
+    }
+
+    public WindParticle(int trailLength, float trailSpacing){
+        pos = new Vector2();
         vel = new Vector2();
+        trailX = new float[trailLength];
+        trailY = new float[trailLength];
+        trailSpacing2 = trailSpacing * trailSpacing;
+    }
+
+    public WindParticle init(float x, float y){
+        pos.set(x, y);
+        vel.set(0, 0);
         TTL = 2;
-        trail = new Array<Vector2>();
+        trailStart = 0;
+        trailSize = 0;
+        return this;
     }
 
     public void update(float dt){
-        trail.add(vector2Pool.obtain().set(pos.x, pos.y));
+        addTrailPoint(pos.x, pos.y);
         pos.add(vel.x * dt, vel.y * dt);
         vel.scl(.99f);
         vel.x = MathUtils.clamp(vel.x, -MAX_SPEED, MAX_SPEED);
@@ -42,20 +58,54 @@ public class WindParticle {
         TTL -= dt;
     }
 
-    public void render(SpriteBatch batch){
-        float alpha = 0;
-        for (Vector2 p : trail){
-            batch.setColor(new Color(1,1,1, alpha * TTL/2f));
-            batch.draw(Assets.moteTexture, p.x, p.y, 3, 3);
-            alpha += .01f;
+    private void addTrailPoint(float x, float y){
+        if (trailSize > 0) {
+            int newest = (trailStart + trailSize - 1) % trailX.length;
+            float dx = x - trailX[newest];
+            float dy = y - trailY[newest];
+            if (dx * dx + dy * dy < trailSpacing2) return;
         }
+        int index;
+        if (trailSize == trailX.length) {
+            index = trailStart;
+            trailStart = (trailStart + 1) % trailX.length;
+        } else {
+            index = (trailStart + trailSize) % trailX.length;
+            trailSize++;
+        }
+        trailX[index] = x;
+        trailY[index] = y;
+    }
 
-        batch.setColor(Color.WHITE);
+    /**
+     * Adds the newest maxPoints of the trail as a ribbon that tapers and fades toward its oldest point,
+     * and fades out as the mote dies. Skipped if no part of it is in view.
+     */
+    public void addTrail(TrailMesh mesh, ViewCuller culler, int maxPoints){
+        int points = Math.min(trailSize, maxPoints);
+        if (points < 2) return;
+        int start = trailStart + trailSize - points;
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int i = start; i < start + points; i++){
+            int index = i % trailX.length;
+            minX = Math.min(minX, trailX[index]);
+            minY = Math.min(minY, trailY[index]);
+            maxX = Math.max(maxX, trailX[index]);
+            maxY = Math.max(maxY, trailY[index]);
+        }
+        float half = TRAIL_WIDTH / 2;
+        if (!culler.isVisible(minX - half, minY - half, maxX - minX + TRAIL_WIDTH, maxY - minY + TRAIL_WIDTH)) return;
+        mesh.addRibbon(trailX, trailY, start % trailX.length, points, TRAIL_WIDTH, 1, 1, 1, MathUtils.clamp(TTL / 2f, 0, 1));
     }
 
     public void kill(){
         TTL = 0;
-        vector2Pool.freeAll(trail);
-        trail.clear();
+        trailSize = 0;
+    }
+
+    @Override
+    public void reset() {
+        kill();
     }
 }
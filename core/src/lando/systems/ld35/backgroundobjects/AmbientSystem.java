@@ -0,0 +1,156 @@
+package lando.systems.ld35.backgroundobjects;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import lando.systems.ld35.gameobjects.LevelInfo;
+import lando.systems.ld35.utils.QualityGovernor;
+import lando.systems.ld35.utils.ViewCuller;
+
+/**
+ * Fixed capacity store of the background's clouds, birds and the like, spawned from one of the tables in ambient.json.
+ * Like ParticleManager there is one primitive array per attribute, packed into [0, count), so nothing is allocated
+ * after construction. Dead entries are packed away in order, so overlapping clouds never swap places;
+ * spawning into a full store does nothing.
+ */
+public class AmbientSystem {
+
+    private static final int TILE_SIZE = 32;
+
+    public final int capacity;
+
+    private final Array<AmbientType> types;
+    private final int[]              alive;
+    private int                      count;
+
+    private final int[]   type;
+    private final int[]   variant;
+    private final float[] x, previousX, y;
+    private final float[] direction;
+    private final float[] speed;
+    private final float[] depth;
+    private final float[] drift;
+    private final float[] time;
+
+    public AmbientSystem(Array<AmbientType> types, int capacity) {
+        this.types = types;
+        this.capacity = capacity;
+        alive = new int[types.size];
+        type = new int[capacity];
+        variant = new int[capacity];
+        x = new float[capacity];
+        previousX = new float[capacity];
+        y = new float[capacity];
+        direction = new float[capacity];
+        speed = new float[capacity];
+        depth = new float[capacity];
+        drift = new float[capacity];
+        time = new float[capacity];
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void update(float dt, LevelInfo level, QualityGovernor quality) {
+        float mapWidth = level.foregroundLayer.getWidth() * TILE_SIZE;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            time[i] += dt;
+            previousX[i] = x[i];
+            x[i] += speed[i] * dt * direction[i];
+
+            float margin = frame(i).getRegionWidth() * types.get(type[i]).despawnMargin;
+            if (direction[i] < 0 ? x[i] < -margin : x[i] > mapWidth + margin) {
+                alive[type[i]]--;
+                continue;
+            }
+            if (kept != i) copy(i, kept);
+            kept++;
+        }
+        count = kept;
+
+        for (int t = 0; t < types.size; t++) {
+            AmbientType ambient = types.get(t);
+            int cap = ambient.cap(level.foregroundLayer.getHeight(), quality);
+            if (ambient.fill) {
+                for (int missing = cap - alive[t]; missing > 0; missing--) {
+                    if (!spawn(t, level)) break;
+                }
+            } else if (alive[t] < cap && MathUtils.randomBoolean(quality.scale(ambient.chance))) {
+                spawn(t, level);
+            }
+        }
+    }
+
+    private boolean spawn(int t, LevelInfo level) {
+        if (count == capacity) return false;
+        AmbientType ambient = types.get(t);
+        int i = count++;
+        alive[t]++;
+        type[i] = t;
+        variant[i] = MathUtils.random(ambient.variants.length - 1);
+        time[i] = MathUtils.random(2f);
+        depth[i] = MathUtils.random(ambient.depthMin, ambient.depthMax);
+        speed[i] = MathUtils.random(ambient.speedMin, ambient.speedMax) / depth[i];
+        drift[i] = MathUtils.random(ambient.driftMin, ambient.driftMax);
+        direction[i] = ambient.direction == AmbientType.EITHER
+                     ? (MathUtils.randomBoolean() ? 1 : -1)
+                     : ambient.direction;
+        x[i] = direction[i] < 0
+             ? level.foregroundLayer.getWidth() * TILE_SIZE + MathUtils.random(ambient.spawnMargin)
+             : -frame(i).getRegionWidth() - MathUtils.random(ambient.spawnMargin);
+        previousX[i] = x[i];
+        y[i] = MathUtils.random(level.foregroundLayer.getHeight() * TILE_SIZE);
+        return true;
+    }
+
+    /**
+     * Draws each type in table order, so everything of one type is behind everything of the next
+     */
+    public void render(SpriteBatch batch, OrthographicCamera camera, float alpha, ViewCuller culler) {
+        for (int t = 0; t < types.size; t++) {
+            if (alive[t] == 0) continue;
+            AmbientType ambient = types.get(t);
+            for (int i = 0; i < count; i++) {
+                if (type[i] != t) continue;
+                TextureRegion region = frame(i);
+                float scale = ambient.scale / depth[i];
+                float width = (ambient.width > 0 ? ambient.width : region.getRegionWidth()) * scale * -direction[i];
+                float height = (ambient.height > 0 ? ambient.height : region.getRegionHeight()) * scale;
+                float drawX = MathUtils.lerp(previousX[i], x[i], alpha);
+                float drawY = y[i] + ambient.parallax * depth[i] * camera.position.y
+                            + MathUtils.sin(time[i] * ambient.driftRate) * drift[i];
+                if (!culler.isVisible(drawX, drawY, width, height)) continue;
+                batch.draw(region, drawX, drawY, width, height);
+            }
+        }
+    }
+
+    public void clear() {
+        count = 0;
+        for (int t = 0; t < alive.length; t++) {
+            alive[t] = 0;
+        }
+    }
+
+    private TextureRegion frame(int i) {
+        return types.get(type[i]).variants[variant[i]].getKeyFrame(time[i]);
+    }
+
+    private void copy(int from, int to) {
+        type[to] = type[from];
+        variant[to] = variant[from];
+        x[to] = x[from];
+        previousX[to] = previousX[from];
+        y[to] = y[from];
+        direction[to] = direction[from];
+        speed[to] = speed[from];
+        depth[to] = depth[from];
+        drift[to] = drift[from];
+        time[to] = time[from];
+    }
+
+}
@@ -0,0 +1,108 @@
+package lando.systems.ld35.backgroundobjects;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+import lando.systems.ld35.utils.QualityGovernor;
+
+/**
+ * One kind of thing drifting past in the background, as described by an entry in ambient.json.
+ *
+ * Everything spawns off one side of the map and crosses to the other. Depth divides speed and size and multiplies
+ * the parallax, so far away things are small, slow and move with the camera; drift bobs them up and down.
+ */
+public class AmbientType {
+
+    public static final int LEFT   = -1;
+    public static final int RIGHT  = 1;
+    public static final int EITHER = 0;
+
+    public final String      name;
+    public final Animation[] variants;
+    // Keep topping the type up to its cap, rather than rolling chance once per tick
+    public final boolean     fill;
+    public final int         maxAlive;
+    public final float       perTileHigh;
+    // Odds of a spawn per tick while below the cap
+    public final float       chance;
+    public final float       speedMin, speedMax;
+    public final float       depthMin, depthMax;
+    public final float       driftMin, driftMax;
+    public final float       driftRate;
+    public final float       scale;
+    public final float       parallax;
+    // Drawn size, 0 to use the size of the frame
+    public final float       width, height;
+    public final int         direction;
+    // How far past the edge to spawn, in pixels, and how many frame widths past the far edge to despawn
+    public final float       spawnMargin;
+    public final float       despawnMargin;
+
+    public AmbientType(String name, Animation[] variants, JsonValue json) {
+        this.name = name;
+        this.variants = variants;
+        fill = json.getBoolean("fill", false);
+        maxAlive = json.getInt("maxAlive", 0);
+        perTileHigh = json.getFloat("perTileHigh", 0);
+        chance = json.getFloat("chance", 0);
+        JsonValue speed = json.get("speed");
+        speedMin = speed == null ? 0 : speed.getFloat(0);
+        speedMax = speed == null ? 0 : speed.getFloat(1);
+        JsonValue depth = json.get("depth");
+        depthMin = depth == null ? 1 : depth.getFloat(0);
+        depthMax = depth == null ? 1 : depth.getFloat(1);
+        JsonValue drift = json.get("drift");
+        driftMin = drift == null ? 0 : drift.getFloat(0);
+        driftMax = drift == null ? 0 : drift.getFloat(1);
+        driftRate = json.getFloat("driftRate", 0);
+        scale = json.getFloat("scale", 1);
+        parallax = json.getFloat("parallax", 0);
+        width = json.getFloat("width", 0);
+        height = json.getFloat("height", 0);
+        spawnMargin = json.getFloat("spawnMargin", 0);
+        despawnMargin = json.getFloat("despawnMargin", 1);
+        String dir = json.getString("direction", "left");
+        if (dir.equals("left")) direction = LEFT;
+        else if (dir.equals("right")) direction = RIGHT;
+        else if (dir.equals("either")) direction = EITHER;
+        else throw new GdxRuntimeException("Unknown direction '" + dir + "' for ambient type " + name);
+    }
+
+    /**
+     * Most of this type alive at once on a level this many tiles high
+     */
+    public int cap(int tilesHigh, QualityGovernor quality) {
+        return quality.scale(maxAlive + (int) (perTileHigh * tilesHigh));
+    }
+
+    /**
+     * Reads every spawn table in ambient.json, keyed by table name. Sprite names are looked up in sprites.
+     */
+    public static ObjectMap<String, Array<AmbientType>> loadTables(JsonValue root, ObjectMap<String, Animation[]> sprites) {
+        ObjectMap<String, AmbientType> types = new ObjectMap<String, AmbientType>();
+        for (JsonValue json = root.get("types").child; json != null; json = json.next) {
+            Animation[] variants = sprites.get(json.getString("sprite"));
+            if (variants == null) {
+                throw new GdxRuntimeException("Unknown sprite '" + json.getString("sprite") + "' for ambient type " + json.name);
+            }
+            types.put(json.name, new AmbientType(json.name, variants, json));
+        }
+
+        ObjectMap<String, Array<AmbientType>> tables = new ObjectMap<String, Array<AmbientType>>();
+        for (JsonValue json = root.get("tables").child; json != null; json = json.next) {
+            Array<AmbientType> table = new Array<AmbientType>();
+            for (String typeName : json.asStringArray()) {
+                AmbientType type = types.get(typeName);
+                if (type == null) {
+                    throw new GdxRuntimeException("Unknown ambient type '" + typeName + "' in table " + json.name);
+                }
+                table.add(type);
+            }
+            tables.put(json.name, table);
+        }
+        return tables;
+    }
+
+}
@@ -19,7 +19,7 @@ import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.TimeUtils;
 import lando.systems.ld35.LudumDare35;
 import lando.systems.ld35.utils.Assets;
-import lando.systems.ld35.utils.LevelBoundry;
+import lando.systems.ld35.utils.CollisionMask;
 import lando.systems.ld35.utils.SoundManager;
 import lando.systems.ld35.utils.Statistics;
 
@@ -34,8 +34,17 @@ public class Balloon {
     public static final float ANIM_DURATION = 0.5f;
     public static       float MAX_SPEED     = 100f;
     public static       float BOUNDS_MARGIN = 0;
+    // Furthest the balloon may move along either axis in one collision step, a quarter tile
+    public static       float MAX_STEP_DISTANCE = 8f;
+
+    // A wall contact counts for as much as the long side of a door's, when both push on the balloon at once
+    private static final float WALL_CONTACT_WEIGHT = 300f;
+
+    private static final CollisionMask SQUARE_MASK = CollisionMask.full(32, 32);
 
     public Vector2       position;
+    public Vector2       previousPosition;
+    public Vector2       renderPosition;
     public Vector2       velocity;
     public State         currentState;
     public TextureRegion currentTexture;
@@ -44,16 +53,30 @@ public class Balloon {
     public Animation     currentAnimation;
     public Rectangle     bounds;
     public Rectangle     intersectorRectangle;
-    public Pixmap        tilePixmap;
-    public boolean[]     intersectMap;
+    public int[]         intersectMap;
+    public CollisionMask collisionMask;
     public Vector2       center;
     float rotation;
     Vector2 magnetForce;
+    Vector2 tempForce;
     float accumulator;
     Pixmap              _collisionPixmap;
     public Texture      collisionTex;
+    // The last step's contact board, and the one collisionTex shows, debug only
+    int[]               debugContact = new int[32];
+    int[]               drawnContact = new int[32];
     Vector2 massOfCollision;
+    Vector2 contactMoment;
+    Vector2 contactNormal;
+    // How far the balloon's center is inside the wall's reach along contactNormal, see DistanceField
+    public float penetration;
     boolean collided;
+    boolean touchedObject;
+    boolean pushOut;
+    // What the balloon ran into during the last update(), for the screen to act on
+    public boolean       hitSpikes;
+    public Exit          reachedExit;
+    public Array<Rope>   cutRopes = new Array<Rope>();
 
     public Balloon(Vector2 position) {
         accumulator = 0;
@@ -61,6 +84,8 @@ public class Balloon {
         this.center = new Vector2();
         this.currentState = State.NORMAL;
         this.position = position;
+        this.previousPosition = new Vector2(position);
+        this.renderPosition = new Vector2(position);
         this.velocity = new Vector2(0, 0);
         this.currentTexture = Assets.balloonTexture;
         this.animating = false;
@@ -68,9 +93,13 @@ public class Balloon {
         this.currentAnimation = Assets.balloonToBalloonAnimation;
         this.bounds = new Rectangle(position.x, position.y, 32 - (BOUNDS_MARGIN * 2f), 32 - (BOUNDS_MARGIN * 2f));
         this.intersectorRectangle = new Rectangle();
-        this.intersectMap = new boolean[32 * 32];
+        this.intersectMap = new int[32];
+        this.collisionMask = SQUARE_MASK;
         magnetForce = new Vector2();
+        tempForce = new Vector2();
         massOfCollision = new Vector2();
+        contactMoment = new Vector2();
+        contactNormal = new Vector2();
         bounds.x = position.x + BOUNDS_MARGIN;
         bounds.y = position.y + BOUNDS_MARGIN;
         bounds.getCenter(center);
@@ -90,6 +119,43 @@ public class Balloon {
         collisionTex = new Texture(_collisionPixmap);
     }
 
+    /**
+     * Puts the balloon back at (x, y) as a fresh one, without making a new one and its debug pixmap and texture
+     */
+    public void reset(float x, float y) {
+        Assets.tween.killTarget(animationTimer);
+        accumulator = 0;
+        collided = false;
+        currentState = State.NORMAL;
+        position.set(x, y);
+        previousPosition.set(position);
+        renderPosition.set(position);
+        velocity.set(0, 0);
+        currentTexture = Assets.balloonTexture;
+        animating = false;
+        animationTimer.setValue(0);
+        currentAnimation = Assets.balloonToBalloonAnimation;
+        collisionMask = SQUARE_MASK;
+        rotation = 0;
+        penetration = 0;
+        touchedObject = false;
+        pushOut = false;
+        hitSpikes = false;
+        reachedExit = null;
+        cutRopes.clear();
+        magnetForce.set(0, 0);
+        massOfCollision.set(0, 0);
+        contactMoment.set(0, 0);
+        contactNormal.set(0, 0);
+        for (int i = 0; i < intersectMap.length; i++) {
+            intersectMap[i] = 0;
+            debugContact[i] = 0;
+        }
+        bounds.x = position.x + BOUNDS_MARGIN;
+        bounds.y = position.y + BOUNDS_MARGIN;
+        bounds.getCenter(center);
+    }
+
     public void changeState(State state) {
         SoundManager.playBalloonSound(state);
         currentState = state;
@@ -144,7 +210,51 @@ public class Balloon {
     }
 
     Vector2 nextPos = new Vector2();
+    Rectangle sweptBounds = new Rectangle();
+    Rectangle objectFootprint = new Rectangle();
+    Array<ObjectBase> nearbyObjects = new Array<ObjectBase>();
+
+    /**
+     * Advances the balloon by dt, split into collision steps when it could get far enough to pass through something.
+     * Speed is clamped on each axis, so the balloon moves at most MAX_SPEED * dt along either one whatever the forces.
+     * Past MAX_STEP_DISTANCE that is split into as many steps as it takes, unless nothing at all is within reach,
+     * so large dt is safe for fast forwarding and open air still costs a single step.
+     * Stops at the step that hits spikes or reaches the exit, leaving the balloon where it happened.
+     */
     public void update(float dt, LevelInfo levelInfo){
+        hitSpikes = false;
+        reachedExit = null;
+        cutRopes.clear();
+        float reach = MAX_SPEED * dt;
+        int steps = 1;
+        if (reach > MAX_STEP_DISTANCE && !isSweepClear(reach, levelInfo)) {
+            steps = MathUtils.ceil(reach / MAX_STEP_DISTANCE);
+        }
+        float stepDt = dt / steps;
+        for (int i = 0; i < steps && !hitSpikes && reachedExit == null; i++) {
+            step(stepDt, levelInfo);
+        }
+    }
+
+    /**
+     * True if no tile and no part of any map object lies within reach of the balloon on any side.
+     * Objects are tested by their whole footprint, so rotated ropes and spikes count where their masks are.
+     */
+    private boolean isSweepClear(float reach, LevelInfo levelInfo) {
+        // bounds may still be where the last step bounced from, the balloon itself is at position
+        sweptBounds.set(position.x + BOUNDS_MARGIN - reach, position.y + BOUNDS_MARGIN - reach,
+                        bounds.width + 2 * reach, bounds.height + 2 * reach);
+        if (levelInfo.solidGrid.anySolid(sweptBounds.x, sweptBounds.y, sweptBounds.width, sweptBounds.height)) {
+            return false;
+        }
+        levelInfo.objectGrid.query(sweptBounds, nearbyObjects);
+        for (int i = 0; i < nearbyObjects.size; i++) {
+            if (sweptBounds.overlaps(MapObjectGrid.getFootprint(nearbyObjects.get(i), objectFootprint))) return false;
+        }
+        return true;
+    }
+
+    private void step(float dt, LevelInfo levelInfo){
         accumulator+= dt;
         if (!collided) {
             switch (currentState) {
@@ -165,26 +275,13 @@ public class Balloon {
         bounds.getCenter(center);
 
 
-        magnetForce.set(0,0);
-
-        // Interact with map objects
-        for (ObjectBase obj : levelInfo.mapObjects) {
-            // Interact with fans
-            if (obj instanceof Fan && currentState != State.SPINNER) {
-                Fan f = (Fan) obj;
-                velocity.add(f.getWindForce(center).scl(dt));
-            }
-
-
-            // Interact with magnets
-            if (obj instanceof ForceEntity && currentState == State.MAGNET){
-                ForceEntity f = (ForceEntity)obj;
-                magnetForce.add(f.getMagneticForce(center));
-            }
-
+        // Interact with fans, their wind and their magnets reach across the level
+        if (currentState != State.SPINNER) {
+            velocity.add(levelInfo.forceField.wind(center.x, center.y, tempForce).scl(dt));
         }
 
         if (currentState == State.MAGNET){
+            levelInfo.forceField.magnet(center.x, center.y, magnetForce);
             velocity.add(magnetForce.scl(dt));
             rotation = (float)Math.toDegrees(Math.atan2(magnetForce.y, magnetForce.x))-90f;
         } else {
@@ -204,57 +301,45 @@ public class Balloon {
         if (currentState != State.SPINNER) velocity.scl(.99f);
 
         collided = false;
+        touchedObject = false;
+        pushOut = false;
         massOfCollision.set(0,0);
-        int tileX = (int)(nextPos.x / 32);
-        int tileY = (int)(nextPos.y / 32);
-        Array<LevelBoundry> cells = levelInfo.getTiles(tileX - 1, tileY - 1, tileX + 1, tileY + 1);
         bounds.x = nextPos.x + BOUNDS_MARGIN;
         bounds.y = nextPos.y + BOUNDS_MARGIN;
-        if (cells.size > 0){
-
-            for (LevelBoundry boundry: cells){
-                if (Intersector.intersectRectangles(boundry.rect, bounds, intersectorRectangle)){
-                    if (tilePixmap == null) {
-                        Texture t = boundry.tile.getTile().getTextureRegion().getTexture();
-                        if (!t.getTextureData().isPrepared()) {
-                            t.getTextureData().prepare();
-                        }
-                        tilePixmap = t.getTextureData().consumePixmap();
-                    }
-
-                    Rectangle textureArea = new Rectangle(intersectorRectangle.x - boundry.rect.x + boundry.tile.getTile().getTextureRegion().getRegionX(),
-                                                      intersectorRectangle.y - boundry.rect.y + boundry.tile.getTile().getTextureRegion().getRegionY(),
-                                                      intersectorRectangle.width, intersectorRectangle.height);
-                    Rectangle overlapRect = new Rectangle(intersectorRectangle.x - bounds.x, intersectorRectangle.y - bounds.y, intersectorRectangle.width, intersectorRectangle.height);
-                    int regionY = boundry.tile.getTile().getTextureRegion().getRegionY();
-                    // This may need to be <=
-                    for (int x = 0; x < textureArea.width; x++){
-                        for (int y = 0; y <  textureArea.height; y++){
-                            int texX = x + (int)textureArea.x;
-                            int texY = 31 - (int)(y + Math.abs(intersectorRectangle.y - boundry.rect.y)) + regionY;
-                            int pix = tilePixmap.getPixel(texX, texY);
-                            if (intersectorRectangle.x - bounds.x >= 32 || intersectorRectangle.x - bounds.x < 0) continue;
-                            if (intersectorRectangle.y - bounds.y >= 32 || intersectorRectangle.y - bounds.y < 0) continue;
-                            int index = (int)( intersectorRectangle.x - bounds.x) + x + (int)(intersectorRectangle.y - bounds.y + y) * 32;
-                            if (index >= intersectMap.length) continue;
-                            if ((pix & 0xFF) != 0x00) intersectMap[index] = true;
-                        }
-                    }
-//                    Gdx.app.log("Collision", textureArea.toString());
+        updateCollisionMask();
+        if (levelInfo.solidGrid.anySolid(bounds.x, bounds.y, bounds.width, bounds.height)) {
+            int boardX = MathUtils.floor(bounds.x);
+            int boardY = MathUtils.floor(bounds.y);
+            int tileX = (int)(nextPos.x / 32);
+            int tileY = (int)(nextPos.y / 32);
+            for (int y = tileY - 1; y <= tileY + 1; y++) {
+                for (int x = tileX - 1; x <= tileX + 1; x++) {
+                    if (!levelInfo.solidGrid.isTile(x, y)) continue;
+                    collisionMask.overlapInto(intersectMap, levelInfo.collisionMasks.getTileMask(x, y), x * 32 - boardX, y * 32 - boardY);
                 }
-
             }
-
         }
 
         // Collide with map Objects
-        for (ObjectBase obj : levelInfo.mapObjects) {
+        levelInfo.objectGrid.query(bounds, nearbyObjects);
+        for (int i = 0; i < nearbyObjects.size; i++) {
+            ObjectBase obj = nearbyObjects.get(i);
             if(obj instanceof Spikes) {
+                if (currentState != State.POP && currentState != State.DEAD && obj.collision(this) != null) {
+                    hitSpikes = true;
+                }
                 continue;
             }
 
+            if (obj instanceof Exit && currentState != State.DEAD && bounds.overlaps(obj.getBounds())) {
+                reachedExit = (Exit) obj;
+            }
+
             if (obj instanceof Rope) {
                 if (currentState == State.BUZZSAW) {
+                    if (obj.collision(this) != null && !cutRopes.contains((Rope) obj, true)) {
+                        cutRopes.add((Rope) obj);
+                    }
                     continue;
                 }
 
@@ -264,6 +349,7 @@ public class Balloon {
 
             if (Intersector.intersectRectangles(obj.realWorldBounds, bounds, intersectorRectangle)){
                 collided = true;
+                touchedObject = true;
                 if (intersectorRectangle.width > intersectorRectangle.height){
                     massOfCollision.add(Math.signum(velocity.x) * 30, Math.signum(velocity.y) * -300);
                 } else {
@@ -271,28 +357,27 @@ public class Balloon {
                 }
             }
         }
-        boolean debug = LudumDare35.game.resolver.showDebug();
-        if (debug) {
-        _collisionPixmap.setColor(Color.BLACK);
-        _collisionPixmap.fill();
-        }
-        for (int i = 0; i < intersectMap.length;i++){
-            int cX = i %32;
-            int cY = i /32;
-            if (intersectMap[i]){
-                collided = true;
-                if (debug) {
-                    _collisionPixmap.drawPixel(cX, cY, Color.RED.toIntBits());
-                }
-                int x = 16 - (i % 32);
-                int y = 16 - (i / 32);
-                if (x <= 0) x--;
-                if (y <= 0) y--;
-                massOfCollision.add(x, y);
+        contactMoment.set(0, 0);
+        if (CollisionMask.addContactMoment(intersectMap, contactMoment) > 0) {
+            collided = true;
+            // The distance field says which way is out of the wall and how deep in the balloon is,
+            // the pixel moment is only the fallback where the field is flat (between walls, or none in range)
+            float centerX = bounds.x + bounds.width / 2f;
+            float centerY = bounds.y + bounds.height / 2f;
+            if (levelInfo.distanceField.gradient(centerX, centerY, contactNormal)) {
+                penetration = Math.max(0, bounds.width / 2f - levelInfo.distanceToWall(centerX, centerY));
+                massOfCollision.add(contactNormal.x * WALL_CONTACT_WEIGHT, contactNormal.y * WALL_CONTACT_WEIGHT);
+                pushOut = penetration > 0;
+            } else {
+                penetration = 0;
+                massOfCollision.add(contactMoment);
             }
+        } else {
+            penetration = 0;
         }
-        if (debug) {
-            collisionTex = new Texture(_collisionPixmap);
+        if (LudumDare35.game.resolver.showDebug()) {
+            // Drawn into collisionTex by render(), once a frame at most
+            System.arraycopy(intersectMap, 0, debugContact, 0, intersectMap.length);
         }
         if (collided){
             massOfCollision.nor();
@@ -308,39 +393,58 @@ public class Balloon {
 //            nextPos = position;
             if (currentState != State.DEAD)
                 velocity.add(massOfCollision.x * 10, massOfCollision.y * 10);
+            // Against walls alone, take the step and push back out along the field's normal,
+            // no further than a step could have gone in; otherwise stay put where the last step was clear
+            if (pushOut && !touchedObject) {
+                float push = Math.min(penetration, MAX_STEP_DISTANCE);
+                position.set(nextPos.x + contactNormal.x * push, nextPos.y + contactNormal.y * push);
+            }
         } else {
             position.set(nextPos);
         }
 
-        for(int i =0; i < intersectMap.length; i++){
-            intersectMap[i] = false;
+        for (int i = 0; i < intersectMap.length; i++){
+            intersectMap[i] = 0;
         }
 
 
 
 
+    }
+
+    /**
+     * Snapshot the position at the start of a simulation tick, render() draws between it and the current one
+     */
+    public void beginTick() {
+        previousPosition.set(position);
     }
 
     public void render(SpriteBatch batch){
+        render(batch, 1f);
+    }
+
+    public void render(SpriteBatch batch, float alpha){
+        renderPosition.set(previousPosition).lerp(position, alpha);
         if (animating && currentAnimation != null) {
-            batch.draw(currentAnimation.getKeyFrame(animationTimer.floatValue()), position.x, position.y, 32, 32);
+            batch.draw(currentAnimation.getKeyFrame(animationTimer.floatValue()), renderPosition.x, renderPosition.y, 32, 32);
         } else {
             if (currentState == State.BUZZSAW){
-                batch.draw(Assets.buzzsawAnimation.getKeyFrame(accumulator), position.x, position.y, 16, 16, 32, 32, 1, 1, rotation);
+                batch.draw(Assets.buzzsawAnimation.getKeyFrame(accumulator), renderPosition.x, renderPosition.y, 16, 16, 32, 32, 1, 1, rotation);
 //                batch.draw(Assets.whitePixelTexture, position.x, position.y, 16, 16, 32, 32, 1, 1, rotation);
 
             } else {
-                batch.draw(currentTexture, position.x, position.y, 16, 16, 32, 32, 1, 1, rotation);
+                batch.draw(currentTexture, renderPosition.x, renderPosition.y, 16, 16, 32, 32, 1, 1, rotation);
             }
         }
         if (LudumDare35.game.resolver.showDebug()) {
-            Vector2 norm = velocity.cpy();
+            updateCollisionTexture();
+            Vector2 norm = tempForce.set(velocity);
             norm.nor();
             for (int i = 0; i < velocity.len(); i++){
                 batch.draw(Assets.whitePixelTexture, center.x + i * norm.x, center.y + i * norm.y, 1, 1);
             }
             batch.setColor(Color.GREEN);
-            norm = massOfCollision.cpy();
+            norm.set(massOfCollision);
             norm.nor();
             for (int i = 0; i < 30; i++){
                 batch.draw(Assets.whitePixelTexture, center.x + i * norm.x, center.y + i * norm.y, 1, 1);
@@ -353,6 +457,46 @@ public class Balloon {
     // Private Implementation
     // ------------------------------------------------------------------------
 
+    /**
+     * Redraws collisionTex from the last step's contact board, if it changed since it was last drawn
+     */
+    private void updateCollisionTexture() {
+        boolean changed = false;
+        for (int y = 0; y < debugContact.length; y++) {
+            if (debugContact[y] != drawnContact[y]) {
+                drawnContact[y] = debugContact[y];
+                changed = true;
+            }
+        }
+        if (!changed) return;
+        _collisionPixmap.setColor(Color.BLACK);
+        _collisionPixmap.fill();
+        for (int y = 0; y < drawnContact.length; y++) {
+            for (int x = 0; x < 32; x++) {
+                if ((drawnContact[y] & (1 << x)) != 0) {
+                    _collisionPixmap.drawPixel(x, y, Color.RED.toIntBits());
+                }
+            }
+        }
+        collisionTex.draw(_collisionPixmap, 0, 0);
+    }
+
+    /**
+     * Collide as whatever frame is on screen, using the masks Assets built for every balloon frame
+     */
+    private void updateCollisionMask() {
+        TextureRegion region;
+        if (animating && currentAnimation != null) {
+            region = currentAnimation.getKeyFrame(animationTimer.floatValue());
+        } else if (currentState == State.BUZZSAW) {
+            region = Assets.buzzsawAnimation.getKeyFrame(accumulator);
+        } else {
+            region = currentTexture;
+        }
+        CollisionMask mask = Assets.balloonMasks.get(region, 32, 32, 0, false);
+        collisionMask = (mask == null || mask.isEmpty()) ? SQUARE_MASK : mask;
+    }
+
     private void setTextureForCurrentState() {
         switch(currentState){
             case NORMAL:   currentTexture = Assets.balloonTexture; break;
@@ -7,6 +7,7 @@ import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import lando.systems.ld35.utils.Assets;
+import lando.systems.ld35.utils.CollisionMasks;
 
 public class Door extends TriggerableEntity {
 
@@ -32,17 +33,22 @@ public class Door extends TriggerableEntity {
     private float rotation;
     private TextureRegion textureRegion;
     public boolean updateWindField;
+    public boolean updateOccupancy;
+    // Everywhere the door has been since the wind was last marched against it
+    public final Rectangle windBounds = new Rectangle();
 
     // -----------------------------------------------------------------------------------------------------------------
 
-    public Door(Rectangle bounds, float closedRotation, float openedRotation, TextureRegion textureRegion) {
+    public Door(Rectangle bounds, float closedRotation, float openedRotation, TextureRegion textureRegion, CollisionMasks masks) {
         super(bounds, closedRotation, false);
         this.dimensions = new Vector2(bounds.width, bounds.height);
         this.position = new Vector2(bounds.x, bounds.y);
         this.closedRotation = closedRotation;
         this.openedRotation = openedRotation;
         this.textureRegion = textureRegion;
+        this.collisionMask = masks.get(textureRegion);
         updateWindField = true;
+        updateOccupancy = true;
         //
 
 //        this.rotationOrigin = new Vector2(bounds)
@@ -51,11 +57,7 @@ public class Door extends TriggerableEntity {
         this.targetRotation = this.closedRotation;
         this.state = State.CLOSED;
 
-        realWorldBounds.set(bounds);
-        realWorldBounds.setWidth(Math.max(bounds.width, bounds.height) * MathUtils.cosDeg(rotation));
-        realWorldBounds.setHeight(Math.max(bounds.width, bounds.height) * MathUtils.sinDeg(rotation));
-
-
+        updateRealWorldBounds();
     }
 
     // -----------------------------------------------------------------------------------------------------------------
@@ -77,6 +79,19 @@ public class Door extends TriggerableEntity {
     }
 
 
+    /**
+     * Closes the door at once, as it was placed, and marks its footprint and the wind as already up to date
+     */
+    public void reset() {
+        rotation = closedRotation;
+        targetRotation = closedRotation;
+        state = State.CLOSED;
+        updateRealWorldBounds();
+        updateWindField = false;
+        updateOccupancy = false;
+        windBounds.set(realWorldBounds);
+    }
+
     private void setState(State state) {
         if (this.state != state) {
             this.state = state;
@@ -87,17 +102,6 @@ public class Door extends TriggerableEntity {
     // -----------------------------------------------------------------------------------------------------------------
 
     public void update(float dt) {
-        realWorldBounds.set(bounds);
-        realWorldBounds.setWidth(Math.max(bounds.width, bounds.height) * MathUtils.cosDeg(rotation));
-        realWorldBounds.setHeight(Math.max(bounds.width, bounds.height) * MathUtils.sinDeg(rotation));
-        if (realWorldBounds.width < 0){
-            realWorldBounds.width *= -1;
-            realWorldBounds.x -= realWorldBounds.width;
-        }
-        if (realWorldBounds.height < 0){
-            realWorldBounds.height *= -1;
-            realWorldBounds.y -= realWorldBounds.height;
-        }
         float amountLeft = targetRotation - rotation;
         if (amountLeft > 180) amountLeft -= 360;
         if (amountLeft < -180) amountLeft += 360;
@@ -110,7 +114,39 @@ public class Door extends TriggerableEntity {
         } else {
             rotation += dr;
         }
+        updateRealWorldBounds();
+        updateOccupancy = true;
+    }
+
+    private void updateRealWorldBounds() {
+        rotatedBounds(bounds, rotation, realWorldBounds);
+    }
+
+    /**
+     * The box swept out by a door placed at bounds and turned to rotation, also used when baking levels
+     */
+    public static Rectangle rotatedBounds(Rectangle bounds, float rotation, Rectangle out) {
+        out.set(bounds);
+        out.setWidth(Math.max(bounds.width, bounds.height) * MathUtils.cosDeg(rotation));
+        out.setHeight(Math.max(bounds.width, bounds.height) * MathUtils.sinDeg(rotation));
+        if (out.width < 0){
+            out.width *= -1;
+            out.x -= out.width;
+        }
+        if (out.height < 0){
+            out.height *= -1;
+            out.y -= out.height;
+        }
+        return out;
+    }
 
+    /**
+     * The door turns about the middle of its left side, so it can reach its full length out from there either way
+     */
+    @Override
+    public Rectangle getRenderBounds(Rectangle out) {
+        float reach = dimensions.x + dimensions.y;
+        return out.set(position.x - reach, position.y + dimensions.y / 2 - reach, 2 * reach, 2 * reach);
     }
 
     public void render(SpriteBatch batch){
@@ -13,18 +13,23 @@ public class Exit extends ObjectBase {
     private static final float DURATION = 0.5f;
 
     private MutableFloat animTimer;
+    private boolean      animating;
 
     public Exit(Rectangle bounds, float rotation, boolean flipX) {
         super(bounds, rotation, flipX);
         animTimer = new MutableFloat(0f);
-        Tween.to(animTimer, -1, DURATION)
-                .target(Assets.netAnimation.getAnimationDuration())
-                .repeatYoyo(-1, 0f)
-                .start(Assets.tween);
     }
 
     @Override
     public void update(float delta) {
+        // Started here rather than when built, since levels can be built off the render thread
+        if (!animating) {
+            animating = true;
+            Tween.to(animTimer, -1, DURATION)
+                    .target(Assets.netAnimation.getAnimationDuration())
+                    .repeatYoyo(-1, 0f)
+                    .start(Assets.tween);
+        }
         keyframe = Assets.netAnimation.getKeyFrame(animTimer.floatValue());
     }
 
@@ -9,31 +9,45 @@ import lando.systems.ld35.utils.WindField;
 
 public class Fan extends ForceEntity {
 
+    public static final float WIND_FORCE = 60f;
+
     Animation animation;
     float timer = 0;
     WindField windField;
     LevelInfo level;
+    // Tiles the wind currently blows through, inclusive
+    int windTileX1, windTileY1, windTileX2, windTileY2;
 
     public Fan(Rectangle bounds, float rotation, boolean flipX, LevelInfo level) {
         super(bounds, rotation, flipX, true);
         this.animation = Assets.fanAnimation;
         this.level = level;
-        calcWindField();
+        this.windField = new WindField(new Vector2(), new Rectangle(), direction);
     }
 
+    /**
+     * Marches the wind out from the fan until it hits a wall or door, see LevelInfo.getWindBounds
+     */
     public void calcWindField(){
-        windField = level.getWindBounds(direction, realWorldBounds);
-
+        level.getWindBounds(direction, realWorldBounds, windField);
+        updateWindTiles();
     }
 
-    Vector2 force = new Vector2();
-    public Vector2 getWindForce(Vector2 pos){
-        force.set(0f, 0f);
-        if (windField.bounds.contains(pos)){
-            force.add(direction).scl(60);
-        }
+    /**
+     * Takes wind bounds marched ahead of time, as baked levels carry them for the doors' starting positions
+     */
+    public void setWindField(Rectangle bounds) {
+        realWorldBounds.getCenter(windField.origin);
+        windField.bounds.set(bounds);
+        updateWindTiles();
+    }
 
-        return force;
+    private void updateWindTiles() {
+        Rectangle wind = windField.bounds;
+        windTileX1 = (int) wind.x / 32;
+        windTileY1 = (int) wind.y / 32;
+        windTileX2 = (int) (wind.x + wind.width) / 32 - 1;
+        windTileY2 = (int) (wind.y + wind.height) / 32 - 1;
     }
 
     public Vector2 getDirection() {
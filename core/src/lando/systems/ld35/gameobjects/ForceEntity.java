@@ -5,6 +5,8 @@ import com.badlogic.gdx.math.Vector2;
 
 public abstract class ForceEntity extends ObjectBase {
 
+    public static final float MAGNET_STRENGTH = 750000f;
+
     public boolean isMagnetic;
     public Vector2 direction;
 
@@ -17,35 +19,33 @@ public abstract class ForceEntity extends ObjectBase {
         this.isMagnetic = isMagnetic;
         this.direction = ForceEntityDirection.fromRotation(rotation, flipX).getDirection();
 
-        realWorldBounds = new Rectangle(bounds);
+        realWorldBounds = mouthBounds(bounds, direction, new Rectangle());
+        center = new Vector2();
+        realWorldBounds.getCenter(center);
+    }
+
+    /**
+     * Where the force comes out of an entity placed at bounds and facing direction, also used when baking levels
+     */
+    public static Rectangle mouthBounds(Rectangle bounds, Vector2 direction, Rectangle out) {
+        out.set(bounds);
         if (direction.x != 0){
-//            realWorldBounds.x += 32 * direction.x;
+//            out.x += 32 * direction.x;
         }
         if (direction.y != 0){
-            realWorldBounds.width = 64;
-            realWorldBounds.height = 32;
-//            realWorldBounds.y += 32 * direction.y;
+            out.width = 64;
+            out.height = 32;
+//            out.y += 32 * direction.y;
             if (direction.y > 0){
-                realWorldBounds.x -= 64;
+                out.x -= 64;
             } else {
-                realWorldBounds.y -= 32;
+                out.y -= 32;
             }
         }
-        center = new Vector2();
-        realWorldBounds.getCenter(center);
+        return out;
     }
 
     public boolean getIsMagnetic() {
         return isMagnetic;
     }
-
-    public Vector2 getMagneticForce(Vector2 pos){
-        Vector2 force = new Vector2();
-        if (isMagnetic){
-            force = center.cpy().sub(pos);
-            force.nor();
-            force.scl(1f/pos.dst2(center) * 750000);
-        }
-        return force;
-    }
 }
@@ -16,7 +16,7 @@ public enum ForceEntityDirection {
         this.y = y;
     }
 
-    Vector2 getDirection() {
+    public Vector2 getDirection() {
         return new Vector2(this.x, this.y);
     }
 
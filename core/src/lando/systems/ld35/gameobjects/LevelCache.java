@@ -0,0 +1,187 @@
+package lando.systems.ld35.gameobjects;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import lando.systems.ld35.utils.DistanceField;
+import lando.systems.ld35.utils.Level;
+
+/**
+ * Keeps what went into levels already loaded, so loading one again reads no files and rebuilds no distance field:
+ * the level's data, its distance field as built, and the textures it draws from.
+ *
+ * Textures are shared by image path and reference counted. Every cached level and every level being played holds
+ * one reference to each of its images, and a texture is disposed once the last is released. Levels not asked for in
+ * the longest time are dropped while everything cached, textures included, comes to more than the budget.
+ *
+ * Only used from the render thread; the data and fields it hands out are never changed, building a level from them
+ * included (see LevelData.createMap), so any thread can read them.
+ */
+public class LevelCache implements Disposable {
+
+    public static final int DEFAULT_SIZE_KB = 16 * 1024;
+
+    private static class Entry {
+        final Level         level;
+        final LevelData     data;
+        final DistanceField distanceField;
+        final Array<String> imagePaths;
+        final int           bytes;
+
+        Entry(Level level, LevelData data, DistanceField distanceField) {
+            this.level = level;
+            this.data = data;
+            this.distanceField = distanceField;
+            this.imagePaths = data.getImagePaths();
+            this.bytes = data.sizeInBytes() + distanceField.sizeInBytes();
+        }
+    }
+
+    private static class SharedTexture {
+        final Texture texture;
+        final int     bytes;
+        int           references;
+
+        SharedTexture(Texture texture) {
+            this.texture = texture;
+            // Decoded to RGBA8888 either way
+            this.bytes = texture.getWidth() * texture.getHeight() * 4;
+        }
+    }
+
+    private final long                              maxBytes;
+    private final ObjectMap<Level, Entry>           entries;
+    // Least recently asked for first
+    private final Array<Entry>                      recent;
+    private final ObjectMap<String, SharedTexture>  textures;
+    private long                                    bytes;
+
+    public LevelCache(int sizeKB) {
+        this.maxBytes = sizeKB * 1024L;
+        this.entries = new ObjectMap<Level, Entry>();
+        this.recent = new Array<Entry>();
+        this.textures = new ObjectMap<String, SharedTexture>();
+        this.bytes = 0;
+    }
+
+    /**
+     * The level's data if it is cached, marking it as the most recently asked for
+     */
+    public LevelData getData(Level level) {
+        Entry entry = touch(level);
+        return entry == null ? null : entry.data;
+    }
+
+    /**
+     * The level's distance field as it was built, before anything was cut away; copy it, never change it
+     */
+    public DistanceField getDistanceField(Level level) {
+        Entry entry = touch(level);
+        return entry == null ? null : entry.distanceField;
+    }
+
+    /**
+     * Adds a level that has just been built, taking a reference to each of its images, which must all be cached
+     */
+    public void put(Level level, LevelData data, DistanceField distanceField) {
+        if (entries.containsKey(level)) {
+            touch(level);
+            return;
+        }
+        Entry entry = new Entry(level, data, distanceField);
+        for (int i = 0; i < entry.imagePaths.size; i++) {
+            acquireTexture(entry.imagePaths.get(i));
+        }
+        entries.put(level, entry);
+        recent.add(entry);
+        bytes += entry.bytes;
+        trim();
+    }
+
+    /**
+     * Takes a reference to the cached texture for an image, or returns null if there is none
+     */
+    public Texture acquireTexture(String path) {
+        SharedTexture shared = textures.get(path);
+        if (shared == null) return null;
+        shared.references++;
+        return shared.texture;
+    }
+
+    /**
+     * Caches a texture just made for an image, with the one reference its maker holds
+     */
+    public void putTexture(String path, Texture texture) {
+        SharedTexture shared = new SharedTexture(texture);
+        shared.references = 1;
+        textures.put(path, shared);
+        bytes += shared.bytes;
+        trim();
+    }
+
+    public void releaseTexture(String path) {
+        SharedTexture shared = textures.get(path);
+        if (shared == null || --shared.references > 0) return;
+        textures.remove(path);
+        bytes -= shared.bytes;
+        shared.texture.dispose();
+    }
+
+    /**
+     * How many references are held to the cached texture for an image, 0 once it is gone
+     */
+    int getReferences(String path) {
+        SharedTexture shared = textures.get(path);
+        return shared == null ? 0 : shared.references;
+    }
+
+    /**
+     * Releases the references held for each of the images a level draws from
+     */
+    public void releaseTextures(LevelData data) {
+        Array<String> paths = data.getImagePaths();
+        for (int i = 0; i < paths.size; i++) {
+            releaseTexture(paths.get(i));
+        }
+    }
+
+    /**
+     * Drops every cached level; textures still referenced by levels being played stay until they are released
+     */
+    @Override
+    public void dispose() {
+        while (recent.size > 0) {
+            evict(recent.first());
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Private Implementation -------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private Entry touch(Level level) {
+        Entry entry = entries.get(level);
+        if (entry != null) {
+            recent.removeValue(entry, true);
+            recent.add(entry);
+        }
+        return entry;
+    }
+
+    private void trim() {
+        while (bytes > maxBytes && recent.size > 0) {
+            evict(recent.first());
+        }
+    }
+
+    private void evict(Entry entry) {
+        entries.remove(entry.level);
+        recent.removeValue(entry, true);
+        bytes -= entry.bytes;
+        for (int i = 0; i < entry.imagePaths.size; i++) {
+            releaseTexture(entry.imagePaths.get(i));
+        }
+    }
+
+}
@@ -0,0 +1,426 @@
+package lando.systems.ld35.gameobjects;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.NumberUtils;
+import com.badlogic.gdx.utils.ObjectMap;
+import lando.systems.ld35.utils.CollisionMask;
+import lando.systems.ld35.utils.CollisionMasks;
+
+/**
+ * A level compiled ahead of time from its TMX file by the desktop LevelBaker: tilesets, both tile layers,
+ * typed object records, collision masks, tile occupancy and the wind each fan blows with the doors closed.
+ * The whole file is read in one go and decoded straight into arrays, with no XML or MapProperties in between.
+ * TmxLevelReader fills in everything but the masks, occupancy and wind when a map has not been baked.
+ *
+ * Everything is big endian. Floats are stored as their int bits and strings as a char count (-1 for null)
+ * followed by UTF-16 chars. Tile layers keep Tiled's row order, top row first, and gids keep their flip flags;
+ * each layer lists the gids it uses once, then holds one byte per cell indexing that list (a short past 256 gids).
+ * Sub cells are 16 bits per tile and are stored as shorts.
+ */
+public class LevelData {
+
+    public static final int MAGIC   = 0x4C443335; // "LD35"
+    public static final int VERSION = 1;
+
+    public static final int FLIP_HORIZONTALLY = 0x80000000;
+    public static final int FLIP_VERTICALLY   = 0x40000000;
+    public static final int FLIP_DIAGONALLY   = 0x20000000;
+    public static final int GID_MASK          = 0x1FFFFFFF;
+
+    public static final String FOREGROUND_LAYER = "foreground";
+    public static final String BACKGROUND_LAYER = "background";
+    public static final String OBJECT_LAYER     = "objects";
+
+    public int                   tilesWide;
+    public int                   tilesHigh;
+    public int                   tileWidth;
+    public int                   tileHeight;
+    public Array<Tileset>        tilesets;
+    public Layer                 foreground;
+    public Layer                 background;
+    public Array<ObjectRecord>   objects;
+    // Null unless baked. Keyed by gid: plain tile ids for the foreground, flagged gids for objects drawn flipped
+    public IntMap<CollisionMask> masks;
+    public int[]                 tileBits;
+    public int[]                 subCells;
+
+    public boolean isBaked() {
+        return masks != null;
+    }
+
+    /**
+     * Roughly how much memory the data takes up, counting only its arrays and a flat amount per object
+     */
+    public int sizeInBytes() {
+        int bytes = (foreground.gids.length + background.gids.length) * 4 + objects.size * 128;
+        if (isBaked()) {
+            bytes += (tileBits.length + subCells.length) * 4;
+            for (CollisionMask mask : masks.values()) {
+                bytes += mask.bits.length * 4;
+            }
+        }
+        return bytes;
+    }
+
+    public static class Tileset {
+        public int           firstGid;
+        // Null for a collection of images, which lists one image per tile instead
+        public String        image;
+        public int           tileWidth;
+        public int           tileHeight;
+        public int           spacing;
+        public int           margin;
+        public int           offsetX;
+        public int           offsetY;
+        public IntArray      tileIds    = new IntArray();
+        public Array<String> tileImages = new Array<String>();
+    }
+
+    public static class Layer {
+        public String  name;
+        public boolean visible;
+        public float   opacity;
+        public int[]   gids;
+    }
+
+    /**
+     * One map object as LevelInfo places it: y is the top of the object and rotation is counter clockwise
+     */
+    public static class ObjectRecord {
+        public LevelObject   type;
+        public float         x;
+        public float         y;
+        public float         width;
+        public float         height;
+        public float         rotation;
+        public int           gid;
+        public String        group;
+        public String        triggeredBy;
+        public float         openRotation;
+        // Wind bounds marched at bake time, fans only
+        public Rectangle     wind;
+
+        public boolean isFlipHorizontally() {
+            return (gid & FLIP_HORIZONTALLY) != 0;
+        }
+
+        public boolean isFlipVertically() {
+            return (gid & FLIP_VERTICALLY) != 0;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Loading ----------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    public static String bakedPath(String mapName) {
+        int dot = mapName.lastIndexOf('.');
+        return (dot < 0 ? mapName : mapName.substring(0, dot)) + ".bin";
+    }
+
+    /**
+     * Returns the baked copy of mapName, or null if there is none or it was baked by a different version
+     */
+    public static LevelData load(String mapName) {
+        FileHandle file = Gdx.files.internal(bakedPath(mapName));
+        if (!file.exists()) return null;
+        return read(file.readBytes());
+    }
+
+    public static LevelData read(byte[] bytes) {
+        Input in = new Input(bytes);
+        if (in.readInt() != MAGIC) throw new GdxRuntimeException("Not a baked level");
+        if (in.readInt() != VERSION) return null;
+
+        LevelData data = new LevelData();
+        data.tilesWide = in.readInt();
+        data.tilesHigh = in.readInt();
+        data.tileWidth = in.readInt();
+        data.tileHeight = in.readInt();
+
+        int tilesetCount = in.readInt();
+        data.tilesets = new Array<Tileset>(tilesetCount);
+        for (int i = 0; i < tilesetCount; i++) {
+            Tileset tileset = new Tileset();
+            tileset.firstGid = in.readInt();
+            tileset.image = in.readString();
+            tileset.tileWidth = in.readInt();
+            tileset.tileHeight = in.readInt();
+            tileset.spacing = in.readInt();
+            tileset.margin = in.readInt();
+            tileset.offsetX = in.readInt();
+            tileset.offsetY = in.readInt();
+            int tileCount = in.readInt();
+            for (int j = 0; j < tileCount; j++) {
+                tileset.tileIds.add(in.readInt());
+                tileset.tileImages.add(in.readString());
+            }
+            data.tilesets.add(tileset);
+        }
+
+        int cells = data.tilesWide * data.tilesHigh;
+        data.foreground = readLayer(in, FOREGROUND_LAYER, cells);
+        data.background = readLayer(in, BACKGROUND_LAYER, cells);
+
+        int objectCount = in.readInt();
+        data.objects = new Array<ObjectRecord>(objectCount);
+        LevelObject[] types = LevelObject.values();
+        for (int i = 0; i < objectCount; i++) {
+            ObjectRecord record = new ObjectRecord();
+            record.type = types[in.readInt()];
+            record.x = in.readFloat();
+            record.y = in.readFloat();
+            record.width = in.readFloat();
+            record.height = in.readFloat();
+            record.rotation = in.readFloat();
+            record.gid = in.readInt();
+            record.group = in.readString();
+            record.triggeredBy = in.readString();
+            record.openRotation = in.readFloat();
+            if (in.readInt() != 0) {
+                record.wind = new Rectangle(in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat());
+            }
+            data.objects.add(record);
+        }
+
+        int maskCount = in.readInt();
+        data.masks = new IntMap<CollisionMask>(maskCount);
+        for (int i = 0; i < maskCount; i++) {
+            int gid = in.readInt();
+            CollisionMask mask = new CollisionMask(in.readInt(), in.readInt());
+            in.readInts(mask.bits);
+            data.masks.put(gid, mask);
+        }
+
+        data.tileBits = in.readInts(new int[(cells + 31) >>> 5]);
+        data.subCells = new int[cells];
+        for (int i = 0; i < cells; i++) {
+            data.subCells[i] = in.readShort();
+        }
+        return data;
+    }
+
+    private static Layer readLayer(Input in, String name, int cells) {
+        Layer layer = new Layer();
+        layer.name = name;
+        layer.visible = in.readInt() != 0;
+        layer.opacity = in.readFloat();
+        int[] palette = in.readInts(new int[in.readInt()]);
+        layer.gids = new int[cells];
+        for (int i = 0; i < cells; i++) {
+            layer.gids[i] = palette[palette.length > 256 ? in.readShort() : in.readByte()];
+        }
+        return layer;
+    }
+
+    // ------------------------------------------------------------------------
+    // Building ---------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+     * Every image the tilesets draw from, each listed once
+     */
+    public Array<String> getImagePaths() {
+        Array<String> paths = new Array<String>();
+        for (int i = 0; i < tilesets.size; i++) {
+            Tileset tileset = tilesets.get(i);
+            if (tileset.image != null) {
+                if (!paths.contains(tileset.image, false)) paths.add(tileset.image);
+            } else {
+                for (int j = 0; j < tileset.tileImages.size; j++) {
+                    if (!paths.contains(tileset.tileImages.get(j), false)) paths.add(tileset.tileImages.get(j));
+                }
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Builds the TiledMap TmxMapLoader would have, adds each object's texture region to objectRegions
+     * (in the order of objects, null for an object without a tile), and registers any baked masks for those regions
+     * so no pixmap is read back. The regions belong to the new map; nothing in this data is changed, so a cached
+     * LevelData can build maps for any number of levels at once.
+     * Images already in textures are used as they are, and any others are loaded into it and owned by the map.
+     * Only loading an image needs the GL context.
+     */
+    public TiledMap createMap(CollisionMasks collisionMasks, ObjectMap<String, Texture> textures,
+                              Array<TextureRegion> objectRegions) {
+        TiledMap map = new TiledMap();
+        Array<Texture> owned = new Array<Texture>();
+
+        for (int i = 0; i < tilesets.size; i++) {
+            Tileset tileset = tilesets.get(i);
+            TiledMapTileSet tileSet = new TiledMapTileSet();
+            if (tileset.image != null) {
+                Texture texture = texture(textures, owned, tileset.image);
+                int stopWidth = texture.getWidth() - tileset.tileWidth;
+                int stopHeight = texture.getHeight() - tileset.tileHeight;
+                int id = tileset.firstGid;
+                for (int y = tileset.margin; y <= stopHeight; y += tileset.tileHeight + tileset.spacing) {
+                    for (int x = tileset.margin; x <= stopWidth; x += tileset.tileWidth + tileset.spacing) {
+                        TextureRegion region = new TextureRegion(texture, x, y, tileset.tileWidth, tileset.tileHeight);
+                        addTile(tileSet, tileset, id++, region);
+                    }
+                }
+            } else {
+                for (int j = 0; j < tileset.tileIds.size; j++) {
+                    Texture texture = texture(textures, owned, tileset.tileImages.get(j));
+                    addTile(tileSet, tileset, tileset.firstGid + tileset.tileIds.get(j), new TextureRegion(texture));
+                }
+            }
+            map.getTileSets().addTileSet(tileSet);
+        }
+
+        map.getLayers().add(createLayer(map, background));
+        map.getLayers().add(createLayer(map, foreground));
+
+        if (isBaked()) {
+            for (IntMap.Entry<CollisionMask> entry : masks.entries()) {
+                if ((entry.key & ~GID_MASK) != 0) continue;
+                TiledMapTile tile = map.getTileSets().getTile(entry.key);
+                if (tile != null) collisionMasks.put(tile.getTextureRegion(), entry.value);
+            }
+        }
+        for (int i = 0; i < objects.size; i++) {
+            ObjectRecord record = objects.get(i);
+            TiledMapTile tile = map.getTileSets().getTile(record.gid & GID_MASK);
+            if (tile == null) {
+                objectRegions.add(null);
+                continue;
+            }
+            // Objects get their own copy of the tile's region, flipped the way they are drawn
+            TextureRegion region = new TextureRegion(tile.getTextureRegion());
+            region.flip(record.isFlipHorizontally(), record.isFlipVertically());
+            objectRegions.add(region);
+            CollisionMask mask = isBaked() ? masks.get(record.gid) : null;
+            if (mask != null) collisionMasks.put(region, mask);
+        }
+
+        map.setOwnedResources(owned);
+        return map;
+    }
+
+    private static Texture texture(ObjectMap<String, Texture> textures, Array<Texture> owned, String path) {
+        Texture texture = textures.get(path);
+        if (texture == null) {
+            texture = new Texture(Gdx.files.internal(path));
+            textures.put(path, texture);
+            owned.add(texture);
+        }
+        return texture;
+    }
+
+    private static void addTile(TiledMapTileSet tileSet, Tileset tileset, int id, TextureRegion region) {
+        StaticTiledMapTile tile = new StaticTiledMapTile(region);
+        tile.setId(id);
+        tile.setOffsetX(tileset.offsetX);
+        tile.setOffsetY(-tileset.offsetY);
+        tileSet.putTile(id, tile);
+    }
+
+    /**
+     * Same cells TmxMapLoader makes: rows flipped to y-up, and diagonal flips turned into rotations
+     */
+    private TiledMapTileLayer createLayer(TiledMap map, Layer layer) {
+        TiledMapTileLayer tileLayer = new TiledMapTileLayer(tilesWide, tilesHigh, tileWidth, tileHeight);
+        tileLayer.setName(layer.name);
+        tileLayer.setVisible(layer.visible);
+        tileLayer.setOpacity(layer.opacity);
+        for (int y = 0; y < tilesHigh; y++) {
+            for (int x = 0; x < tilesWide; x++) {
+                int gid = layer.gids[x + y * tilesWide];
+                TiledMapTile tile = map.getTileSets().getTile(gid & GID_MASK);
+                if (tile == null) continue;
+                boolean flipH = (gid & FLIP_HORIZONTALLY) != 0;
+                boolean flipV = (gid & FLIP_VERTICALLY) != 0;
+                TiledMapTileLayer.Cell cell = new TiledMapTileLayer.Cell();
+                if ((gid & FLIP_DIAGONALLY) != 0) {
+                    if (flipH && flipV) {
+                        cell.setFlipHorizontally(true);
+                        cell.setRotation(TiledMapTileLayer.Cell.ROTATE_270);
+                    } else if (flipH) {
+                        cell.setRotation(TiledMapTileLayer.Cell.ROTATE_270);
+                    } else if (flipV) {
+                        cell.setRotation(TiledMapTileLayer.Cell.ROTATE_90);
+                    } else {
+                        cell.setFlipVertically(true);
+                        cell.setRotation(TiledMapTileLayer.Cell.ROTATE_270);
+                    }
+                } else {
+                    cell.setFlipHorizontally(flipH);
+                    cell.setFlipVertically(flipV);
+                }
+                cell.setTile(tile);
+                tileLayer.setCell(x, tilesHigh - 1 - y, cell);
+            }
+        }
+        return tileLayer;
+    }
+
+    // ------------------------------------------------------------------------
+    // Decoding ---------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private static class Input {
+        private final byte[] bytes;
+        private int          position;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readInt() {
+            if (position + 4 > bytes.length) throw new GdxRuntimeException("Baked level is truncated");
+            int value = ((bytes[position] & 0xFF) << 24) | ((bytes[position + 1] & 0xFF) << 16)
+                      | ((bytes[position + 2] & 0xFF) << 8) | (bytes[position + 3] & 0xFF);
+            position += 4;
+            return value;
+        }
+
+        int readByte() {
+            if (position + 1 > bytes.length) throw new GdxRuntimeException("Baked level is truncated");
+            return bytes[position++] & 0xFF;
+        }
+
+        int readShort() {
+            return (readByte() << 8) | readByte();
+        }
+
+        float readFloat() {
+            return NumberUtils.intBitsToFloat(readInt());
+        }
+
+        int[] readInts(int[] out) {
+            for (int i = 0; i < out.length; i++) {
+                out[i] = readInt();
+            }
+            return out;
+        }
+
+        String readString() {
+            int length = readInt();
+            if (length < 0) return null;
+            if (position + 2 * length > bytes.length) throw new GdxRuntimeException("Baked level is truncated");
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) (((bytes[position] & 0xFF) << 8) | (bytes[position + 1] & 0xFF));
+                position += 2;
+            }
+            return new String(chars);
+        }
+    }
+
+}
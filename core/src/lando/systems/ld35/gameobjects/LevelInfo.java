@@ -1,16 +1,14 @@
 package lando.systems.ld35.gameobjects;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.maps.MapLayer;
-import com.badlogic.gdx.maps.MapObject;
-import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
-import com.badlogic.gdx.maps.tiled.TmxMapLoader;
-import com.badlogic.gdx.maps.tiled.objects.TiledMapTileMapObject;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
-import com.badlogic.gdx.math.Intersector;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
@@ -29,29 +27,64 @@ public class LevelInfo {
     public static final int   PIXELS_PER_TILE   = Config.gameWidth / SCREEN_TILES_WIDE;
 
     public Pool<Rectangle>                  rectanglePool;
-    public Array<LevelBoundry>              tiles;
     public Level                            details;
+    public LevelData                        data;
     public TiledMap                         map;
     public Array<ObjectBase>                mapObjects;
     public OrthogonalTiledMapRenderer       mapRenderer;
     public TiledMapTileLayer                foregroundLayer;
     public TiledMapTileLayer                backgroundLayer;
+    public CollisionMasks                   collisionMasks;
+    public DistanceField                    distanceField;
+    public SolidGrid                        solidGrid;
+    public Array<Door>                      doors;
+    public Array<Rectangle>                 doorBounds;
+    public Array<Fan>                       fans;
+    public ForceField                       forceField;
+    public MapObjectGrid                    objectGrid;
     public int                              levelIndex;
     public ObjectMap<String, Array<Rope>>   ropeGroups;
     public ObjectMap<String, Array<TriggerableEntity>>   triggeredByRopeGroup;
 
-    public LevelInfo(int level, Pool<Rectangle> rectanglePool) {
-        createLevel(level, rectanglePool);
+    private final Rectangle windStep = new Rectangle();
+    private final Rectangle windDirty = new Rectangle();
+    private final Rectangle renderBounds = new Rectangle();
+    private final Array<Rectangle> bakedWind = new Array<Rectangle>();
+
+    // The level as loaded, put back by reset()
+    private Array<ObjectBase>      loadedObjects;
+    private DistanceField          loadedDistanceField;
+    private ForceField             loadedForceField;
+    private final Array<Rectangle> loadedWind = new Array<Rectangle>();
+    private boolean                objectsRemoved;
+
+    /**
+     * Builds the level from data already read and whatever images have already been made into textures, see LevelLoader.
+     * Nothing here touches the GL context unless an image is missing from textures.
+     * The distance field is copied from builtField when there is one, which must be this level's as first built.
+     */
+    public LevelInfo(int level, Pool<Rectangle> rectanglePool, LevelData data, ObjectMap<String, Texture> textures,
+                     DistanceField builtField) {
+        setLevel(level, rectanglePool);
+        loadMap(data, textures, builtField);
     }
 
-    public void createLevel(int level, Pool<Rectangle> rectanglePool) {
+    private void setLevel(int level, Pool<Rectangle> rectanglePool) {
         this.levelIndex = level;
         this.details = Level.values()[level];
         this.rectanglePool = rectanglePool;
-        this.tiles = new Array<LevelBoundry>();
         this.ropeGroups = new ObjectMap<String, Array<Rope>>();
         this.triggeredByRopeGroup = new ObjectMap<String, Array<TriggerableEntity>>();
-        loadMap(details.mapName);
+    }
+
+    /**
+     * Frees the map's textures, once nothing will draw this level again
+     */
+    public void dispose() {
+        if (map != null) {
+            map.dispose();
+            map = null;
+        }
     }
 
     public void setView(OrthographicCamera camera) {
@@ -64,11 +97,14 @@ public class LevelInfo {
         mapRenderer.getBatch().setColor(1f, 1f, 1f, 1.0f);
     }
 
-    public void renderForeground(SpriteBatch batch) {
+    public void renderForeground(SpriteBatch batch, ViewCuller culler) {
         mapRenderer.renderTileLayer(foregroundLayer);
 
         for(int i = 0; i < mapObjects.size; i++) {
-            mapObjects.get(i).render(batch);
+            ObjectBase obj = mapObjects.get(i);
+            if (culler.isVisible(obj.getRenderBounds(renderBounds))) {
+                obj.render(batch);
+            }
         }
     }
 
@@ -76,144 +112,291 @@ public class LevelInfo {
         for(int i = 0; i < mapObjects.size; i++) {
             mapObjects.get(i).update(dt);
         }
+
+        boolean doorsMoved = false;
+        for (int i = 0; i < doors.size; i++) {
+            Door door = doors.get(i);
+            if (door.updateOccupancy) {
+                door.updateOccupancy = false;
+                door.windBounds.merge(door.realWorldBounds);
+                doorsMoved = true;
+            }
+        }
+        if (doorsMoved) {
+            rasterizeDoors();
+            for (int i = 0; i < doors.size; i++) {
+                objectGrid.move(doors.get(i));
+            }
+        }
+
+        // Doors only block the wind once they come to rest
+        for (int i = 0; i < doors.size; i++) {
+            Door door = doors.get(i);
+            if (door.updateWindField) {
+                door.updateWindField = false;
+                updateWind(door);
+            }
+        }
     }
 
-    public void loadMap(String mapName){
-        final TmxMapLoader mapLoader = new TmxMapLoader();
+    private void rasterizeDoors() {
+        solidGrid.clearDoors();
+        for (int i = 0; i < doors.size; i++) {
+            solidGrid.addDoor(doors.get(i).realWorldBounds);
+        }
+    }
 
-        map = mapLoader.load(mapName);
+    /**
+     * Reads the level baked next to mapName if there is one, see LevelData, and the TMX file itself otherwise
+     */
+    public static LevelData readMap(String mapName) {
+        LevelData data = LevelData.load(mapName);
+        if (data == null) {
+            data = TmxLevelReader.read(Gdx.files.internal(mapName));
+        }
+        return data;
+    }
 
-        mapRenderer = new OrthogonalTiledMapRenderer(map, MAP_UNIT_SCALE, Assets.batch);
+    private void loadMap(LevelData data, ObjectMap<String, Texture> textures, DistanceField builtField) {
+        this.data = data;
+        collisionMasks = new CollisionMasks();
+        Array<TextureRegion> objectRegions = new Array<TextureRegion>(data.objects.size);
+        map = data.createMap(collisionMasks, textures, objectRegions);
 
-        foregroundLayer = (TiledMapTileLayer) map.getLayers().get("foreground");
-        backgroundLayer = (TiledMapTileLayer) map.getLayers().get("background");
+        mapRenderer = new OrthogonalTiledMapRenderer(map, MAP_UNIT_SCALE, Assets.batch);
 
-        loadMapObjects();
-    }
+        foregroundLayer = (TiledMapTileLayer) map.getLayers().get(LevelData.FOREGROUND_LAYER);
+        backgroundLayer = (TiledMapTileLayer) map.getLayers().get(LevelData.BACKGROUND_LAYER);
 
-    public void nextLevel() {
-        levelIndex++;
-        if (levelIndex < Level.values().length) {
-            // TODO: do fancy shit here before loading the next level, elapsed time, # times switched, shape histogram, ...
-            createLevel(levelIndex, rectanglePool);
+        collisionMasks.addTileLayer(foregroundLayer);
+        if (data.isBaked()) {
+            solidGrid = new SolidGrid(data.tilesWide, data.tilesHigh, data.tileBits, data.subCells);
+        } else {
+            solidGrid = SolidGrid.fromTiles(collisionMasks, foregroundLayer.getWidth(), foregroundLayer.getHeight());
+        }
+        loadMapObjects(data.objects, objectRegions);
+        collisionMasks.finishLoading();
+        if (builtField != null) {
+            distanceField = new DistanceField(builtField);
         } else {
-            // This signals to the caller that all the levels have been 'completed'
-            levelIndex = -1;
+            buildDistanceField();
         }
+        buildForceField();
+        snapshot(builtField);
     }
 
-    public WindField getWindBounds(Vector2 direction, Rectangle bounds){
-        int x1, y1, x2, y2;
-        if (direction.y == 0) { // horizontal
-            x1 = x2 = (int)bounds.x / 32;
-            y1 = (int)bounds.y / 32;
-            y2 = y1+1;
-        } else {
-            y1 = y2 = (int)bounds.y/32;
-            x1 = (int)bounds.x/32;
-            x2 = x1+1;
+    /**
+     * Keeps everything playing the level changes, so reset() can put it back. A distance field handed in at load
+     * is never changed, so it is kept as it is rather than copied.
+     */
+    private void snapshot(DistanceField builtField) {
+        loadedObjects = new Array<ObjectBase>(mapObjects);
+        loadedDistanceField = builtField != null ? builtField : new DistanceField(distanceField);
+        loadedForceField = new ForceField(forceField);
+        loadedWind.clear();
+        for (int i = 0; i < fans.size; i++) {
+            loadedWind.add(new Rectangle(fans.get(i).windField.bounds));
         }
-        int tempX1 = x1 + (int)direction.x;
-        int tempX2 = x2 + (int)direction.x;
-        int tempY1 = y1 + (int)direction.y;
-        int tempY2 = y2 + (int)direction.y;
-        outerloop:
-        while(tempX1 >= 0 && tempX1 < foregroundLayer.getWidth() && tempX2 >= 0 && tempX2 < foregroundLayer.getWidth() &&
-                tempY1 >= 0 && tempY1 < foregroundLayer.getHeight() && tempY2 >= 0 && tempY2 < foregroundLayer.getHeight()){
-            if (foregroundLayer.getCell(tempX1, tempY1) != null || foregroundLayer.getCell(tempX2, tempY2) != null){
-                break;
-            }
-            Rectangle worldBounds = new Rectangle(tempX1 * 32 , tempY1 *32, (tempX2 - tempX1 + 1) * 32, (tempY2 - tempY1 + 1) * 32);
-            for (ObjectBase obj : mapObjects){
-                if (!(obj instanceof Door)) continue;
-                Rectangle intersect = new Rectangle();
-                if (Intersector.intersectRectangles(worldBounds, obj.realWorldBounds, intersect)){
-                    break outerloop;
-                }
+        objectsRemoved = false;
+    }
 
+    /**
+     * Puts the level back the way it was loaded: cut ropes back in place, doors closed, and the wind and
+     * distance field as they were. Reads nothing and makes no new objects, so retrying costs less than a frame.
+     */
+    public void reset() {
+        if (objectsRemoved) {
+            objectsRemoved = false;
+            for (int i = 0; i < loadedObjects.size; i++) {
+                ObjectBase obj = loadedObjects.get(i);
+                if (!obj.removed) continue;
+                obj.removed = false;
+                objectGrid.add(obj);
             }
-            // TODO also test for doors etc
-            tempX1 += direction.x;
-            tempX2 += direction.x;
-            tempY1 += direction.y;
-            tempY2 += direction.y;
+            mapObjects.clear();
+            mapObjects.addAll(loadedObjects);
+            distanceField.set(loadedDistanceField);
         }
-        tempX1 -= direction.x;
-        tempX2 -= direction.x;
-        tempY1 -= direction.y;
-        tempY2 -= direction.y;
-        Vector2 center = new Vector2();
-        bounds.getCenter(center);
-        Rectangle windBounds = new Rectangle(Math.min(x1, tempX1) * 32, Math.min(y1, tempY1) * 32, (Math.abs(tempX2 - x1) + 1)*32, (Math.abs(tempY2 - y1) + 1)*32);
-        return new WindField(center, windBounds, direction);
-    }
 
-    public Array<LevelBoundry> getTiles (int startX, int startY, int endX, int endY) {
-        if (startX > endX){
-            int t = startX;
-            startX = endX;
-            endX = t;
+        for (int i = 0; i < doors.size; i++) {
+            doors.get(i).reset();
         }
-        if (startY > endY){
-            int t = startY;
-            startY = endY;
-            endY = t;
+        rasterizeDoors();
+        for (int i = 0; i < doors.size; i++) {
+            objectGrid.move(doors.get(i));
         }
-        for(int i = 0; i < tiles.size; i++) {
-            rectanglePool.free(tiles.get(i).rect);
+
+        forceField.set(loadedForceField);
+        for (int i = 0; i < fans.size; i++) {
+            fans.get(i).setWindField(loadedWind.get(i));
         }
-        tiles.clear();
-        for (int y = startY; y <= endY; y++) {
-            for (int x = startX; x <= endX; x++) {
-                TiledMapTileLayer.Cell cell = foregroundLayer.getCell(x, y);
-                if (cell != null) {
-                    Rectangle rect = rectanglePool.obtain();
-                    rect.set(x *32, y *32, 32, 32);
-                    tiles.add(new LevelBoundry(cell, rect));
-                }
+    }
+
+    /**
+     * Marches from the tiles at bounds along direction until a tile or door is in the way,
+     * and writes the tiles passed over into out
+     */
+    public WindField getWindBounds(Vector2 direction, Rectangle bounds, WindField out){
+        return WindField.march(solidGrid, doorBounds, direction, bounds, windStep, out);
+    }
+
+    private void buildForceField() {
+        forceField = new ForceField(foregroundLayer.getWidth(), foregroundLayer.getHeight());
+        for (int i = 0; i < fans.size; i++) {
+            Fan fan = fans.get(i);
+            Rectangle wind = bakedWind.get(i);
+            if (wind != null) {
+                fan.setWindField(wind);
+            } else {
+                fan.calcWindField();
+            }
+            addWind(fan, 1f);
+            if (fan.isMagnetic) {
+                forceField.addMagnet(fan.center.x, fan.center.y, ForceEntity.MAGNET_STRENGTH);
             }
         }
-        return tiles;
+        for (int i = 0; i < doors.size; i++) {
+            Door door = doors.get(i);
+            door.updateWindField = false;
+            door.windBounds.set(door.realWorldBounds);
+        }
+    }
+
+    /**
+     * Re-marches only the fans that blow down a row or column the door has passed through since it last came to rest.
+     * Fans re-marched while it was swinging saw it somewhere in there too, so they are caught as well.
+     */
+    private void updateWind(Door door) {
+        windDirty.set(door.windBounds).merge(door.realWorldBounds);
+        door.windBounds.set(door.realWorldBounds);
+        // Closed touch, like the door overlay, so nothing an overlap test could hit is missed
+        int x1 = MathUtils.floor(windDirty.x / 32);
+        int y1 = MathUtils.floor(windDirty.y / 32);
+        int x2 = MathUtils.floor((windDirty.x + windDirty.width) / 32);
+        int y2 = MathUtils.floor((windDirty.y + windDirty.height) / 32);
+        for (int i = 0; i < fans.size; i++) {
+            Fan fan = fans.get(i);
+            if (!windCorridorTouches(fan, x1, y1, x2, y2)) continue;
+            addWind(fan, -1f);
+            fan.calcWindField();
+            addWind(fan, 1f);
+        }
+    }
+
+    /**
+     * True if the strip a fan blows down, from its mouth to the edge of the level, shares a tile with the given tiles
+     */
+    private boolean windCorridorTouches(Fan fan, int x1, int y1, int x2, int y2) {
+        int cx1 = fan.windTileX1;
+        int cy1 = fan.windTileY1;
+        int cx2 = fan.windTileX2;
+        int cy2 = fan.windTileY2;
+        if (fan.direction.x > 0) cx2 = forceField.tilesWide - 1;
+        if (fan.direction.x < 0) cx1 = 0;
+        if (fan.direction.y > 0) cy2 = forceField.tilesHigh - 1;
+        if (fan.direction.y < 0) cy1 = 0;
+        return cx1 <= x2 && x1 <= cx2 && cy1 <= y2 && y1 <= cy2;
+    }
+
+    private void addWind(Fan fan, float sign) {
+        forceField.addWind(fan.windTileX1, fan.windTileY1, fan.windTileX2, fan.windTileY2,
+                     sign * fan.direction.x * Fan.WIND_FORCE, sign * fan.direction.y * Fan.WIND_FORCE);
+    }
+
+    /**
+     * Signed distance from a world position to the nearest tile or rope pixel, see DistanceField
+     */
+    public float distanceToWall(float x, float y) {
+        return distanceField.distance(x, y);
+    }
+
+    public void removeObjects(Array<? extends ObjectBase> objects) {
+        mapObjects.removeAll(objects, true);
+        objectsRemoved = true;
+        for (ObjectBase obj : objects) {
+            objectGrid.remove(obj);
+            obj.removed = true;
+        }
+
+        // Rebuild the distance field around whatever was solid
+        int cellX1 = Integer.MAX_VALUE, cellY1 = Integer.MAX_VALUE;
+        int cellX2 = Integer.MIN_VALUE, cellY2 = Integer.MIN_VALUE;
+        for (ObjectBase obj : objects) {
+            CollisionMask mask = obj.getCollisionMask();
+            if (!(obj instanceof Rope) || mask == null) continue;
+            int maskX = MathUtils.floor(obj.bounds.x) + mask.offsetX;
+            int maskY = MathUtils.floor(obj.bounds.y) + mask.offsetY;
+            cellX1 = Math.min(cellX1, maskX / DistanceField.CELL_SIZE);
+            cellY1 = Math.min(cellY1, maskY / DistanceField.CELL_SIZE);
+            cellX2 = Math.max(cellX2, (maskX + mask.width) / DistanceField.CELL_SIZE);
+            cellY2 = Math.max(cellY2, (maskY + mask.height) / DistanceField.CELL_SIZE);
+        }
+        if (cellX1 > cellX2) return;
+        distanceField.clearSolid(cellX1, cellY1, cellX2, cellY2);
+        stampDistanceField(cellX1, cellY1, cellX2, cellY2);
+        distanceField.rebuild(cellX1, cellY1, cellX2, cellY2);
     }
 
     public TiledMapTileLayer.Cell getCell(int x, int y){
         return foregroundLayer.getCell(x, y);
     }
 
-    private void loadMapObjects() {
-        if (map == null) return;
+    private void buildDistanceField() {
+        distanceField = new DistanceField(foregroundLayer.getWidth() * 32, foregroundLayer.getHeight() * 32);
+        stampDistanceField(0, 0, distanceField.width - 1, distanceField.height - 1);
+        distanceField.rebuild();
+    }
+
+    private void stampDistanceField(int cellX1, int cellY1, int cellX2, int cellY2) {
+        int tileX1 = Math.max(0, cellX1 * DistanceField.CELL_SIZE / 32);
+        int tileY1 = Math.max(0, cellY1 * DistanceField.CELL_SIZE / 32);
+        int tileX2 = Math.min(foregroundLayer.getWidth() - 1, cellX2 * DistanceField.CELL_SIZE / 32);
+        int tileY2 = Math.min(foregroundLayer.getHeight() - 1, cellY2 * DistanceField.CELL_SIZE / 32);
+        for (int y = tileY1; y <= tileY2; y++) {
+            for (int x = tileX1; x <= tileX2; x++) {
+                distanceField.stamp(collisionMasks.getTileMask(x, y), x * 32, y * 32, cellX1, cellY1, cellX2, cellY2);
+            }
+        }
+        // Ropes are the only static objects the balloon bounces off, spikes pop it and doors move
+        for (ObjectBase obj : mapObjects) {
+            if (!(obj instanceof Rope)) continue;
+            CollisionMask mask = obj.getCollisionMask();
+            if (mask == null) continue;
+            distanceField.stamp(mask, MathUtils.floor(obj.bounds.x) + mask.offsetX, MathUtils.floor(obj.bounds.y) + mask.offsetY,
+                                cellX1, cellY1, cellX2, cellY2);
+        }
+    }
 
+    private void loadMapObjects(Array<LevelData.ObjectRecord> records, Array<TextureRegion> regions) {
         mapObjects = new Array<ObjectBase>();
+        doors = new Array<Door>();
+        doorBounds = new Array<Rectangle>();
+        fans = new Array<Fan>();
+        bakedWind.clear();
 
-        MapProperties props;
-        MapLayer objectLayer = map.getLayers().get("objects");
-        for (MapObject object : objectLayer.getObjects()) {
-            TiledMapTileMapObject tileObject = (TiledMapTileMapObject) object;
-            props = object.getProperties();
-            float w = (Float) props.get("width");
-            float h = (Float) props.get("height");
-            float x = (Float) props.get("x");
-            float y = (Float) props.get("y") + h; // NOTE: god dammit... off by 1
-            float rotation = tileObject.getRotation() * -1;
-            boolean flipX = tileObject.isFlipHorizontally();
-
-            LevelObject type = valueOf((String) props.get("type"));
-
-            switch (type) {
+        for (int i = 0; i < records.size; i++) {
+            LevelData.ObjectRecord record = records.get(i);
+            TextureRegion region = regions.get(i);
+            float x = record.x;
+            float y = record.y;
+            float w = record.width;
+            float h = record.height;
+            float rotation = record.rotation;
+            boolean flipX = record.isFlipHorizontally();
+
+            switch (record.type) {
                 case spawn:
                     details.startX = x;
                     details.startY = y;
                     break;
                 case door:
-                    String ropeGroupName = (String) props.get("triggeredByRopeGroup");
-                    float openedRotation = Float.parseFloat((String)props.get("openRotation"));
-                    // If not set just use starting rotation.  Otherwise reverse it from Tiled.
-                    openedRotation *= -1;
+                    String ropeGroupName = record.triggeredBy;
                     Door door = new Door(
                             new Rectangle(x, y, w, h),
                             rotation,
-                            openedRotation,
-                            ((TiledMapTileMapObject) object).getTextureRegion()
+                            record.openRotation,
+                            region,
+                            collisionMasks
                     );
 
                     if (ropeGroupName != null) {
@@ -225,23 +408,30 @@ public class LevelInfo {
                         group.add(door);
                     }
                     mapObjects.add(door);
+                    doors.add(door);
+                    doorBounds.add(door.realWorldBounds);
+                    solidGrid.addDoor(door.realWorldBounds);
                     break;
                 case exit:
                     mapObjects.add(new Exit(new Rectangle(x, y, w, h), rotation, flipX));
                     break;
                 case fan:
-                    mapObjects.add(new Fan(new Rectangle(x, y, w, h), rotation, flipX, this));
+                    Fan fan = new Fan(new Rectangle(x, y, w, h), rotation, flipX, this);
+                    mapObjects.add(fan);
+                    fans.add(fan);
+                    bakedWind.add(record.wind);
                     break;
                 case spikes:
-                    mapObjects.add(new Spikes(new Rectangle(x, y, w, h), rotation, flipX, tileObject.getTextureRegion()));
+                    mapObjects.add(new Spikes(new Rectangle(x, y, w, h), rotation, flipX, region, collisionMasks));
                     break;
                 case rope:
-                    String groupName = (String) props.get("group");
+                    String groupName = record.group;
                     Rope levelRope = new Rope(
                             new Rectangle(x, y, w, h),
                             rotation,
                             flipX,
-                            tileObject.getTextureRegion(),
+                            region,
+                            collisionMasks,
                             groupName);
                     // If it's part of a group...
                     if (groupName != null) {
@@ -260,6 +450,11 @@ public class LevelInfo {
                     mapObjects.add(levelRope);
             }
         }
+
+        objectGrid = new MapObjectGrid(foregroundLayer.getWidth(), foregroundLayer.getHeight());
+        for (int i = 0; i < mapObjects.size; i++) {
+            objectGrid.add(mapObjects.get(i));
+        }
     }
 
 }
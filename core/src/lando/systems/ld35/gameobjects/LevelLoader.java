@@ -0,0 +1,285 @@
+package lando.systems.ld35.gameobjects;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
+import lando.systems.ld35.utils.DistanceField;
+import lando.systems.ld35.utils.Level;
+
+/**
+ * Loads levels before they are needed, so moving from one to the next never stalls a frame.
+ * Reading a level and decoding its images, then building everything LevelInfo works out from them, happen on a
+ * background thread. Only making the textures needs the GL context; update() does that, one texture per call.
+ * Where there are no threads, such as the HTML build, the background steps run as soon as they are handed over.
+ * Anything already in the LevelCache is taken from there instead of being read, decoded or rebuilt.
+ *
+ * Call update() once a frame from the render thread, and release() every level taken once done with it.
+ */
+public class LevelLoader implements Disposable {
+
+    // Levels loaded or loading ahead of time; the one asked for longest ago is dropped first
+    public static final int MAX_PREFETCHED = 3;
+
+    private enum Stage { READING, DECODING, UPLOADING, BUILDING, READY }
+
+    private static class Load {
+        final int                             levelIndex;
+        final Level                           details;
+        // Images that were not cached, decoded and waiting to be made into textures
+        final ObjectMap<String, TextureData>  textureData = new ObjectMap<String, TextureData>();
+        // Every image of the level, each holding a reference in the cache
+        final ObjectMap<String, Texture>      textures    = new ObjectMap<String, Texture>();
+        Stage                                 stage;
+        // The background step in flight, if any
+        AsyncResult<Void>                     task;
+        LevelData                             data;
+        DistanceField                         distanceField;
+        LevelInfo                             level;
+
+        Load(int levelIndex) {
+            this.levelIndex = levelIndex;
+            this.details = Level.values()[levelIndex];
+        }
+    }
+
+    private final Pool<Rectangle> rectanglePool;
+    private final LevelCache      cache;
+    private final AsyncExecutor   executor;
+    // Most recently asked for last
+    private final Array<Load>     loads;
+    // Dropped while a background step was still running, disposed once it is done
+    private final Array<Load>     dropped;
+
+    public LevelLoader(Pool<Rectangle> rectanglePool, int cacheSizeKB) {
+        this.rectanglePool = rectanglePool;
+        this.cache = new LevelCache(cacheSizeKB);
+        this.executor = new AsyncExecutor(1);
+        this.loads = new Array<Load>();
+        this.dropped = new Array<Load>();
+    }
+
+    /**
+     * Starts loading a level unless it already is, and marks it as the one most recently asked for
+     */
+    public void prefetch(int levelIndex) {
+        if (levelIndex < 0 || levelIndex >= Level.values().length) return;
+        Load load = find(levelIndex);
+        if (load != null) {
+            loads.removeValue(load, true);
+            loads.add(load);
+            return;
+        }
+        load = new Load(levelIndex);
+        loads.add(load);
+        start(load);
+        while (loads.size > MAX_PREFETCHED) {
+            drop(loads.removeIndex(0));
+        }
+    }
+
+    public boolean isReady(int levelIndex) {
+        Load load = find(levelIndex);
+        return load != null && load.stage == Stage.READY;
+    }
+
+    /**
+     * Hands over a loaded level, which the caller now owns. Finishes loading it first, blocking, if it is not ready yet;
+     * check isReady() to avoid that.
+     */
+    public LevelInfo take(int levelIndex) {
+        Load load = find(levelIndex);
+        if (load == null) {
+            load = new Load(levelIndex);
+            loads.add(load);
+            start(load);
+        }
+        while (load.stage != Stage.READY) {
+            if (load.task != null) load.task.get();
+            advance(load);
+        }
+        loads.removeValue(load, true);
+        return load.level;
+    }
+
+    /**
+     * Frees a level taken from here, once nothing will draw it again
+     */
+    public void release(LevelInfo level) {
+        level.dispose();
+        cache.releaseTextures(level.data);
+    }
+
+    public void update() {
+        for (int i = 0; i < loads.size; i++) {
+            advance(loads.get(i));
+        }
+        for (int i = dropped.size - 1; i >= 0; i--) {
+            Load load = dropped.get(i);
+            if (load.task != null && !load.task.isDone()) continue;
+            dropped.removeIndex(i);
+            dispose(load);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        while (loads.size > 0) {
+            drop(loads.pop());
+        }
+        // Waits for whatever is still running
+        executor.dispose();
+        for (int i = 0; i < dropped.size; i++) {
+            dispose(dropped.get(i));
+        }
+        dropped.clear();
+        cache.dispose();
+    }
+
+    // ------------------------------------------------------------------------
+    // Private Implementation -------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private Load find(int levelIndex) {
+        for (int i = 0; i < loads.size; i++) {
+            if (loads.get(i).levelIndex == levelIndex) return loads.get(i);
+        }
+        return null;
+    }
+
+    /**
+     * Moves a load on by at most one step, rethrowing anything its last background step threw
+     */
+    private void advance(final Load load) {
+        if (load.task != null) {
+            if (!load.task.isDone()) return;
+            load.task.get();
+            load.task = null;
+            switch (load.stage) {
+                case READING:
+                    decode(load);
+                    return;
+                case DECODING:
+                    load.stage = Stage.UPLOADING;
+                    break;
+                case BUILDING:
+                    load.stage = Stage.READY;
+                    cache.put(load.details, load.data, load.distanceField);
+                    return;
+            }
+        }
+        if (load.stage != Stage.UPLOADING) return;
+
+        for (ObjectMap.Entry<String, TextureData> entry : load.textureData.entries()) {
+            if (load.textures.containsKey(entry.key)) continue;
+            // Another level may have made it in the meantime
+            Texture texture = cache.acquireTexture(entry.key);
+            if (texture == null) {
+                texture = new Texture(entry.value);
+                cache.putTexture(entry.key, texture);
+            } else {
+                disposePixmap(entry.value);
+            }
+            load.textures.put(entry.key, texture);
+            return;
+        }
+        load.stage = Stage.BUILDING;
+        load.task = executor.submit(new AsyncTask<Void>() {
+            @Override
+            public Void call() throws Exception {
+                load.level = new LevelInfo(load.levelIndex, rectanglePool, load.data, load.textures, load.distanceField);
+                if (load.distanceField == null) {
+                    load.distanceField = new DistanceField(load.level.distanceField);
+                }
+                return null;
+            }
+        });
+    }
+
+    private void start(final Load load) {
+        load.data = cache.getData(load.details);
+        load.distanceField = cache.getDistanceField(load.details);
+        if (load.data != null) {
+            decode(load);
+            return;
+        }
+        load.stage = Stage.READING;
+        load.task = executor.submit(new AsyncTask<Void>() {
+            @Override
+            public Void call() throws Exception {
+                load.data = LevelInfo.readMap(load.details.mapName);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Takes whatever images are cached, and decodes the rest in the background
+     */
+    private void decode(final Load load) {
+        final Array<String> missing = new Array<String>();
+        Array<String> paths = load.data.getImagePaths();
+        for (int i = 0; i < paths.size; i++) {
+            Texture texture = cache.acquireTexture(paths.get(i));
+            if (texture != null) {
+                load.textures.put(paths.get(i), texture);
+            } else {
+                missing.add(paths.get(i));
+            }
+        }
+        if (missing.size == 0) {
+            load.stage = Stage.UPLOADING;
+            return;
+        }
+        load.stage = Stage.DECODING;
+        load.task = executor.submit(new AsyncTask<Void>() {
+            @Override
+            public Void call() throws Exception {
+                for (int i = 0; i < missing.size; i++) {
+                    TextureData textureData = TextureData.Factory.loadFromFile(Gdx.files.internal(missing.get(i)), false);
+                    if (!textureData.isPrepared()) textureData.prepare();
+                    load.textureData.put(missing.get(i), textureData);
+                }
+                return null;
+            }
+        });
+    }
+
+    private void drop(Load load) {
+        if (load.task != null && !load.task.isDone()) {
+            dropped.add(load);
+        } else {
+            dispose(load);
+        }
+    }
+
+    /**
+     * Releases the textures a load holds and frees the pixmaps it decoded but never uploaded
+     */
+    private void dispose(Load load) {
+        if (load.level != null) {
+            load.level.dispose();
+        }
+        for (String path : load.textures.keys()) {
+            cache.releaseTexture(path);
+        }
+        for (ObjectMap.Entry<String, TextureData> entry : load.textureData.entries()) {
+            if (!load.textures.containsKey(entry.key)) disposePixmap(entry.value);
+        }
+    }
+
+    private static void disposePixmap(TextureData textureData) {
+        if (!textureData.isPrepared()) return;
+        Pixmap pixmap = textureData.consumePixmap();
+        if (textureData.disposePixmap()) pixmap.dispose();
+    }
+
+}
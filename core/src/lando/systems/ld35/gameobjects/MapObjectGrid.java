@@ -0,0 +1,121 @@
+package lando.systems.ld35.gameobjects;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Uniform grid over the level's map objects, one cell per tile.
+ * Each object is listed in every cell its footprint touches, so a query only visits objects near the area asked about.
+ * An object spanning several cells is reported once per query, de-duplicated with a per-query stamp.
+ */
+public class MapObjectGrid {
+
+    public static final int CELL_SIZE = 32;
+
+    public final int cellsWide;
+    public final int cellsHigh;
+
+    private final Array<ObjectBase>[] cells;
+    private final Rectangle           footprint;
+    private int                       queryStamp;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public MapObjectGrid(int cellsWide, int cellsHigh) {
+        this.cellsWide = cellsWide;
+        this.cellsHigh = cellsHigh;
+        this.cells = new Array[cellsWide * cellsHigh];
+        this.footprint = new Rectangle();
+        this.queryStamp = 0;
+    }
+
+    public void add(ObjectBase obj) {
+        getFootprint(obj, footprint);
+        obj.gridX1 = cellX(footprint.x);
+        obj.gridY1 = cellY(footprint.y);
+        obj.gridX2 = cellX(footprint.x + footprint.width);
+        obj.gridY2 = cellY(footprint.y + footprint.height);
+        for (int y = obj.gridY1; y <= obj.gridY2; y++) {
+            for (int x = obj.gridX1; x <= obj.gridX2; x++) {
+                int index = x + y * cellsWide;
+                if (cells[index] == null) {
+                    cells[index] = new Array<ObjectBase>(false, 4);
+                }
+                cells[index].add(obj);
+            }
+        }
+    }
+
+    public void remove(ObjectBase obj) {
+        for (int y = obj.gridY1; y <= obj.gridY2; y++) {
+            for (int x = obj.gridX1; x <= obj.gridX2; x++) {
+                Array<ObjectBase> cell = cells[x + y * cellsWide];
+                if (cell != null) cell.removeValue(obj, true);
+            }
+        }
+    }
+
+    /**
+     * Re-files an object whose footprint changed, such as a rotating door
+     */
+    public void move(ObjectBase obj) {
+        remove(obj);
+        add(obj);
+    }
+
+    /**
+     * Clears out and fills it with every object whose footprint shares a cell with the given area
+     */
+    public Array<ObjectBase> query(float x, float y, float width, float height, Array<ObjectBase> out) {
+        out.clear();
+        queryStamp++;
+        int x1 = cellX(x);
+        int y1 = cellY(y);
+        int x2 = cellX(x + width);
+        int y2 = cellY(y + height);
+        for (int cy = y1; cy <= y2; cy++) {
+            for (int cx = x1; cx <= x2; cx++) {
+                Array<ObjectBase> cell = cells[cx + cy * cellsWide];
+                if (cell == null) continue;
+                for (int i = 0; i < cell.size; i++) {
+                    ObjectBase obj = cell.get(i);
+                    if (obj.gridQueryStamp == queryStamp) continue;
+                    obj.gridQueryStamp = queryStamp;
+                    out.add(obj);
+                }
+            }
+        }
+        return out;
+    }
+
+    public Array<ObjectBase> query(Rectangle area, Array<ObjectBase> out) {
+        return query(area.x, area.y, area.width, area.height, out);
+    }
+
+    /**
+     * Everything an object can be tested against: its placed bounds, its world bounds and its collision mask
+     */
+    static Rectangle getFootprint(ObjectBase obj, Rectangle out) {
+        out.set(obj.bounds);
+        out.merge(obj.realWorldBounds);
+        if (obj.collisionMask != null) {
+            float maskX = MathUtils.floor(obj.bounds.x) + obj.collisionMask.offsetX;
+            float maskY = MathUtils.floor(obj.bounds.y) + obj.collisionMask.offsetY;
+            float x1 = Math.min(out.x, maskX);
+            float y1 = Math.min(out.y, maskY);
+            float x2 = Math.max(out.x + out.width, maskX + obj.collisionMask.width);
+            float y2 = Math.max(out.y + out.height, maskY + obj.collisionMask.height);
+            out.set(x1, y1, x2 - x1, y2 - y1);
+        }
+        return out;
+    }
+
+    private int cellX(float x) {
+        return MathUtils.clamp(MathUtils.floor(x / CELL_SIZE), 0, cellsWide - 1);
+    }
+
+    private int cellY(float y) {
+        return MathUtils.clamp(MathUtils.floor(y / CELL_SIZE), 0, cellsHigh - 1);
+    }
+
+}
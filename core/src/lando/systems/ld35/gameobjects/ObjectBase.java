@@ -1,19 +1,19 @@
 package lando.systems.ld35.gameobjects;
 
-import com.badlogic.gdx.graphics.Pixmap;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Intersector;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import lando.systems.ld35.utils.Assets;
+import lando.systems.ld35.utils.CollisionMask;
 
 public abstract class ObjectBase {
     static float scaleY = 1f;
 
     TextureRegion keyframe;
-    Pixmap texturePixmap;
+    CollisionMask collisionMask;
     Rectangle bounds;
     Rectangle intersectorRectangle;
     float scaleX = 1;
@@ -22,6 +22,10 @@ public abstract class ObjectBase {
     float originY = 0;
     public Rectangle realWorldBounds;
     public Vector2 center;
+    // Cells this object is filed under in the level's MapObjectGrid
+    int gridX1, gridY1, gridX2, gridY2;
+    int gridQueryStamp;
+    boolean removed;
 
 
 
@@ -42,59 +46,42 @@ public abstract class ObjectBase {
     public abstract void update(float delta);
 
     public Rectangle collision(Balloon balloon) {
-        if (texturePixmap != null && balloon.bounds.overlaps(bounds)) {
-            if (Intersector.intersectRectangles(bounds, balloon.bounds, intersectorRectangle)){
-                Rectangle textureArea = new Rectangle(intersectorRectangle.x - bounds.x + keyframe.getRegionX(),
-                    intersectorRectangle.y - bounds.y + keyframe.getRegionY(),
-                    intersectorRectangle.width, intersectorRectangle.height);
-
-                int regionY = keyframe.getRegionY();
-                // This may need to be <=
-                for (int x = 0; x < textureArea.width; x++){
-                    for (int y = 0; y <  textureArea.height; y++){
-                        int texX = x + (int)textureArea.x;
-                        int texY = 31 - (int)(y + intersectorRectangle.y - bounds.y) + regionY;
-                        int pix = texturePixmap.getPixel(texX, texY);
-                        int index = (int)( intersectorRectangle.x - bounds.x) + x + (int)(intersectorRectangle.y - bounds.y + y) * 32;
-                        if((pix & 0xFF) != 0x00) {
-                            return intersectorRectangle;
-                        }
-                    }
-                }
+        if (collisionMask == null) return null;
+        int maskX = MathUtils.floor(bounds.x) + collisionMask.offsetX;
+        int maskY = MathUtils.floor(bounds.y) + collisionMask.offsetY;
+        intersectorRectangle.set(maskX, maskY, collisionMask.width, collisionMask.height);
+        if (Intersector.intersectRectangles(intersectorRectangle, balloon.bounds, intersectorRectangle)) {
+            int offsetX = maskX - MathUtils.floor(balloon.bounds.x);
+            int offsetY = maskY - MathUtils.floor(balloon.bounds.y);
+            if (balloon.collisionMask.overlaps(collisionMask, offsetX, offsetY)) {
+                return intersectorRectangle;
             }
         }
 
         return null;
     }
 
-    public boolean collisionMap(Balloon balloon, boolean[] intersectMap) {
-        boolean collides = false;
-        if (texturePixmap != null && balloon.bounds.overlaps(bounds)) {
-            if (Intersector.intersectRectangles(bounds, balloon.bounds, intersectorRectangle)){
-                Rectangle textureArea = new Rectangle(intersectorRectangle.x - bounds.x + keyframe.getRegionX(),
-                        intersectorRectangle.y - bounds.y + keyframe.getRegionY(),
-                        intersectorRectangle.width, intersectorRectangle.height);
-
-                int regionY = keyframe.getRegionY();
-                // This may need to be <=
-                for (int x = 0; x < textureArea.width; x++){
-                    for (int y = 0; y <  textureArea.height; y++){
-                        int texX = x + (int)textureArea.x;
-                        int texY = 31 - (int)(y + Math.abs(intersectorRectangle.y - bounds.y)) + regionY;
-                        if (intersectorRectangle.x - balloon.bounds.x >= 32 || intersectorRectangle.x - bounds.x <0) continue;
-                        if (intersectorRectangle.y - balloon.bounds.y >= 32 || intersectorRectangle.y - bounds.y <0) continue;
-                        int pix = texturePixmap.getPixel(texX, texY);
-                        int index = (int)( intersectorRectangle.x - balloon.bounds.x) + x + (int)(intersectorRectangle.y - balloon.bounds.y + y) * 32;
-                        if((pix & 0xFF) != 0x00) {
-                            collides = true;
-                            intersectMap[index] = true;
-                        }
-                    }
-                }
-            }
+    public boolean collisionMap(Balloon balloon, int[] intersectMap) {
+        if (collisionMask == null) return false;
+        int maskX = MathUtils.floor(bounds.x) + collisionMask.offsetX;
+        int maskY = MathUtils.floor(bounds.y) + collisionMask.offsetY;
+        if (maskX >= balloon.bounds.x + balloon.bounds.width || maskX + collisionMask.width <= balloon.bounds.x
+         || maskY >= balloon.bounds.y + balloon.bounds.height || maskY + collisionMask.height <= balloon.bounds.y) {
+            return false;
         }
+        int offsetX = maskX - MathUtils.floor(balloon.bounds.x);
+        int offsetY = maskY - MathUtils.floor(balloon.bounds.y);
+        return balloon.collisionMask.overlapInto(intersectMap, collisionMask, offsetX, offsetY);
+    }
 
-        return collides;
+    /**
+     * Everything render() can touch. Unrotated objects stay in their bounds, flipping mirrors them in place;
+     * otherwise it is a square around the point they rotate about, big enough for any rotation.
+     */
+    public Rectangle getRenderBounds(Rectangle out) {
+        if (rotation % 360f == 0) return out.set(bounds);
+        float reach = bounds.width + bounds.height;
+        return out.set(bounds.x + originX - reach, bounds.y + originY - reach, 2 * reach, 2 * reach);
     }
 
     public void render(SpriteBatch batch) {
@@ -103,11 +90,6 @@ public abstract class ObjectBase {
 
     public Rectangle getBounds() { return bounds; }
     public TextureRegion getKeyframe() { return keyframe; }
-    public Pixmap getPixmap() {
-        Texture t = keyframe.getTexture();
-        if (!t.getTextureData().isPrepared()) {
-            t.getTextureData().prepare();
-        }
-        return t.getTextureData().consumePixmap();
-    }
+    public CollisionMask getCollisionMask() { return collisionMask; }
+    public boolean isRemoved() { return removed; }
 }
@@ -2,16 +2,17 @@ package lando.systems.ld35.gameobjects;
 
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
+import lando.systems.ld35.utils.CollisionMasks;
 
 public class Rope extends ObjectBase {
     private boolean vertical;
     private String groupName;
 
-    public Rope(Rectangle bounds, float rotation, boolean flipX, TextureRegion textureRegion, String groupName) {
+    public Rope(Rectangle bounds, float rotation, boolean flipX, TextureRegion textureRegion, CollisionMasks masks, String groupName) {
         super(bounds, rotation, flipX);
         this.groupName = groupName;
         keyframe = textureRegion;
-        texturePixmap = getPixmap();
+        collisionMask = masks.get(textureRegion, bounds.width, bounds.height, rotation, flipX);
     }
 
     @Override
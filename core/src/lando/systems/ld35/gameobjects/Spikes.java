@@ -3,12 +3,13 @@ package lando.systems.ld35.gameobjects;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
 import lando.systems.ld35.utils.Assets;
+import lando.systems.ld35.utils.CollisionMasks;
 
 public class Spikes extends ObjectBase {
-    public Spikes(Rectangle bounds, float rotation, boolean flipX, TextureRegion textureRegion) {
+    public Spikes(Rectangle bounds, float rotation, boolean flipX, TextureRegion textureRegion, CollisionMasks masks) {
         super(bounds, rotation, flipX);
         keyframe = textureRegion;
-        texturePixmap = getPixmap();
+        collisionMask = masks.get(textureRegion, bounds.width, bounds.height, rotation, flipX);
     }
 
     @Override
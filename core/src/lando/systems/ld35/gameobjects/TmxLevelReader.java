@@ -0,0 +1,510 @@
+package lando.systems.ld35.gameobjects;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads the subset of TMX the levels use straight into LevelData in a single pass over the file:
+ * an orthogonal map, embedded tilesets, the foreground and background tile layers and the objects layer.
+ *
+ * No element tree is built. Tags are pulled one at a time into a reused attribute map, and tile data,
+ * whether CSV or base64 (raw, zlib or gzip), is decoded character by character into the layer's gid array.
+ * Object records get the values TmxMapLoader would put in their MapProperties, as LevelInfo reads them.
+ */
+public class TmxLevelReader {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final Reader                    reader;
+    private final String                    mapDir;
+    private final char[]                    buffer;
+    private final StringBuilder             scratch;
+    private final ObjectMap<String, String> attributes;
+    private int                             position;
+    private int                             length;
+
+    // The tag read last
+    private String  tagName;
+    private boolean endTag;
+    private boolean emptyTag;
+
+    private TmxLevelReader(Reader reader, String mapPath) {
+        this.reader = reader;
+        this.mapDir = parent(mapPath);
+        this.buffer = new char[BUFFER_SIZE];
+        this.scratch = new StringBuilder();
+        this.attributes = new ObjectMap<String, String>();
+    }
+
+    public static LevelData read(FileHandle file) {
+        return read(file.reader("UTF-8"), file.path());
+    }
+
+    /**
+     * Reads the map and closes reader. Image paths are resolved against mapPath the way TmxMapLoader does it.
+     */
+    public static LevelData read(Reader reader, String mapPath) {
+        try {
+            return new TmxLevelReader(reader, mapPath).readMap();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error reading " + mapPath, e);
+        } finally {
+            StreamUtils.closeQuietly(reader);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Elements ---------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private LevelData readMap() throws IOException {
+        if (!nextTag() || !tagName.equals("map")) throw error("not a TMX map");
+        String orientation = attribute("orientation", "orthogonal");
+        if (!orientation.equals("orthogonal")) throw error(orientation + " maps are not supported");
+
+        LevelData data = new LevelData();
+        data.tilesWide = intAttribute("width", 0);
+        data.tilesHigh = intAttribute("height", 0);
+        data.tileWidth = intAttribute("tilewidth", 0);
+        data.tileHeight = intAttribute("tileheight", 0);
+        data.tilesets = new Array<LevelData.Tileset>();
+        data.objects = new Array<LevelData.ObjectRecord>();
+
+        boolean hasObjects = false;
+        while (nextTag() && !isEnd("map")) {
+            if (tagName.equals("tileset")) {
+                data.tilesets.add(readTileset());
+            } else if (tagName.equals("layer")) {
+                readLayer(data);
+            } else if (tagName.equals("objectgroup") && LevelData.OBJECT_LAYER.equals(attribute("name", null))) {
+                readObjects(data);
+                hasObjects = true;
+            } else {
+                skipElement();
+            }
+        }
+        if (data.foreground == null || data.background == null) {
+            throw error("needs both a " + LevelData.FOREGROUND_LAYER + " and a " + LevelData.BACKGROUND_LAYER + " layer");
+        }
+        if (!hasObjects) throw error("has no " + LevelData.OBJECT_LAYER + " layer");
+        return data;
+    }
+
+    private LevelData.Tileset readTileset() throws IOException {
+        if (attribute("source", null) != null) throw error("external tilesets are not supported");
+        LevelData.Tileset tileset = new LevelData.Tileset();
+        tileset.firstGid = intAttribute("firstgid", 1);
+        tileset.tileWidth = intAttribute("tilewidth", 0);
+        tileset.tileHeight = intAttribute("tileheight", 0);
+        tileset.spacing = intAttribute("spacing", 0);
+        tileset.margin = intAttribute("margin", 0);
+        if (emptyTag) return tileset;
+
+        while (nextTag() && !isEnd("tileset")) {
+            if (tagName.equals("tileoffset")) {
+                tileset.offsetX = intAttribute("x", 0);
+                tileset.offsetY = intAttribute("y", 0);
+                skipElement();
+            } else if (tagName.equals("image")) {
+                tileset.image = resolve(mapDir, attribute("source", ""));
+                skipElement();
+            } else if (tagName.equals("tile") && !emptyTag) {
+                int id = intAttribute("id", 0);
+                while (nextTag() && !isEnd("tile")) {
+                    if (tagName.equals("image")) {
+                        tileset.tileIds.add(id);
+                        tileset.tileImages.add(resolve(mapDir, attribute("source", "")));
+                    }
+                    skipElement();
+                }
+            } else {
+                skipElement();
+            }
+        }
+        return tileset;
+    }
+
+    private void readLayer(LevelData data) throws IOException {
+        String name = attribute("name", "");
+        if (emptyTag || (!name.equals(LevelData.FOREGROUND_LAYER) && !name.equals(LevelData.BACKGROUND_LAYER))) {
+            skipElement();
+            return;
+        }
+        LevelData.Layer layer = new LevelData.Layer();
+        layer.name = name;
+        layer.visible = intAttribute("visible", 1) == 1;
+        layer.opacity = floatAttribute("opacity", 1f);
+        layer.gids = new int[data.tilesWide * data.tilesHigh];
+
+        while (nextTag() && !isEnd("layer")) {
+            if (!tagName.equals("data") || emptyTag) {
+                skipElement();
+                continue;
+            }
+            String encoding = attribute("encoding", null);
+            if (encoding == null) {
+                int i = 0;
+                while (nextTag() && !isEnd("data")) {
+                    if (tagName.equals("tile") && i < layer.gids.length) {
+                        layer.gids[i++] = (int) Long.parseLong(attribute("gid", "0"));
+                    }
+                    skipElement();
+                }
+            } else if (encoding.equals("csv")) {
+                readCsv(layer.gids);
+                skipElement();
+            } else if (encoding.equals("base64")) {
+                readBase64(layer.gids, attribute("compression", null));
+                skipElement();
+            } else {
+                throw error("unsupported encoding " + encoding);
+            }
+        }
+
+        if (name.equals(LevelData.FOREGROUND_LAYER)) data.foreground = layer;
+        else data.background = layer;
+    }
+
+    private void readObjects(LevelData data) throws IOException {
+        if (emptyTag) return;
+        float mapHeightInPixels = data.tilesHigh * data.tileHeight;
+        while (nextTag() && !isEnd("objectgroup")) {
+            if (!tagName.equals("object")) {
+                skipElement();
+                continue;
+            }
+            String gid = attribute("gid", null);
+            if (gid == null) throw error("object " + attribute("id", "?") + " is not a tile");
+            String type = attribute("type", null);
+            if (type == null) throw error("object " + attribute("id", "?") + " has no type");
+
+            LevelData.ObjectRecord record = new LevelData.ObjectRecord();
+            record.type = LevelObject.valueOf(type);
+            record.width = floatAttribute("width", 0);
+            record.height = floatAttribute("height", 0);
+            record.x = floatAttribute("x", 0);
+            float y = (mapHeightInPixels - floatAttribute("y", 0)) - record.height;
+            record.y = y + record.height; // NOTE: god dammit... off by 1
+            record.rotation = floatAttribute("rotation", 0) * -1;
+            record.gid = (int) Long.parseLong(gid);
+
+            String openRotation = null;
+            if (!emptyTag) {
+                while (nextTag() && !isEnd("object")) {
+                    if (!tagName.equals("property")) {
+                        // Step into <properties>, whose end tag is skipped over like any other
+                        if (!tagName.equals("properties")) skipElement();
+                        continue;
+                    }
+                    String name = attribute("name", "");
+                    String value = attribute("value", null);
+                    if (value == null && !emptyTag) value = readText();
+                    if (!emptyTag) skipElement();
+                    if (name.equals("group")) record.group = value;
+                    else if (name.equals("triggeredByRopeGroup")) record.triggeredBy = value;
+                    else if (name.equals("openRotation")) openRotation = value;
+                }
+            }
+            if (record.type == LevelObject.door) {
+                if (openRotation == null) throw error("door " + attribute("id", "?") + " has no openRotation");
+                // Reverse it from Tiled
+                record.openRotation = -Float.parseFloat(openRotation);
+            }
+            data.objects.add(record);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Tile data --------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private void readCsv(int[] gids) throws IOException {
+        int i = 0;
+        long value = 0;
+        boolean inNumber = false;
+        while (true) {
+            int c = peek();
+            if (c < 0 || c == '<') break;
+            position++;
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                inNumber = true;
+            } else if (inNumber) {
+                if (i < gids.length) gids[i++] = (int) value;
+                value = 0;
+                inNumber = false;
+            }
+        }
+        if (inNumber && i < gids.length) gids[i] = (int) value;
+    }
+
+    /**
+     * Uncompressed data goes straight into gids four bytes at a time, little endian.
+     * Compressed data is collected first, since the inflater has to see all of it.
+     */
+    private void readBase64(int[] gids, String compression) throws IOException {
+        ByteArray compressed = compression != null ? new ByteArray(1024) : null;
+        int bits = 0;
+        int bitCount = 0;
+        int byteIndex = 0;
+        while (true) {
+            int c = peek();
+            if (c < 0 || c == '<') break;
+            position++;
+            int value = base64Value(c);
+            if (value < 0) continue; // whitespace and padding
+            bits = (bits << 6) | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                int b = (bits >>> bitCount) & 0xFF;
+                if (compressed != null) compressed.add((byte) b);
+                else byteIndex = putGidByte(gids, byteIndex, b);
+            }
+        }
+        if (compressed == null) return;
+
+        byte[] bytes = compressed.shrink();
+        InputStream in;
+        if (compression.equals("zlib")) {
+            in = new InflaterInputStream(new ByteArrayInputStream(bytes));
+        } else if (compression.equals("gzip")) {
+            in = new GZIPInputStream(new ByteArrayInputStream(bytes), bytes.length);
+        } else {
+            throw error("unsupported compression " + compression);
+        }
+        try {
+            byte[] chunk = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    byteIndex = putGidByte(gids, byteIndex, chunk[i] & 0xFF);
+                }
+            }
+        } finally {
+            StreamUtils.closeQuietly(in);
+        }
+    }
+
+    private static int putGidByte(int[] gids, int byteIndex, int b) {
+        int i = byteIndex >>> 2;
+        if (i < gids.length) gids[i] |= b << ((byteIndex & 3) << 3);
+        return byteIndex + 1;
+    }
+
+    private static int base64Value(int c) {
+        if (c >= 'A' && c <= 'Z') return c - 'A';
+        if (c >= 'a' && c <= 'z') return c - 'a' + 26;
+        if (c >= '0' && c <= '9') return c - '0' + 52;
+        if (c == '+') return 62;
+        if (c == '/') return 63;
+        return -1;
+    }
+
+    // ------------------------------------------------------------------------
+    // Tags -------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+     * Skips ahead to the next start or end tag and reads its name and attributes.
+     * Text, comments and processing instructions in between are passed over. Returns false at the end of the file.
+     */
+    private boolean nextTag() throws IOException {
+        while (true) {
+            int c = next();
+            if (c < 0) return false;
+            if (c != '<') continue;
+            c = peek();
+            if (c == '?' || c == '!') {
+                skipDeclaration();
+                continue;
+            }
+            endTag = c == '/';
+            if (endTag) position++;
+            tagName = readName();
+            emptyTag = false;
+            attributes.clear();
+            while (true) {
+                skipWhitespace();
+                c = next();
+                if (c < 0) throw error("unexpected end of file");
+                if (c == '>') return true;
+                if (c == '/') {
+                    emptyTag = true;
+                    continue;
+                }
+                position--;
+                String name = readName();
+                skipWhitespace();
+                if (next() != '=') throw error("malformed attribute " + name + " on " + tagName);
+                skipWhitespace();
+                int quote = next();
+                if (quote != '"' && quote != '\'') throw error("malformed attribute " + name + " on " + tagName);
+                scratch.setLength(0);
+                while ((c = next()) != quote) {
+                    if (c < 0) throw error("unexpected end of file");
+                    scratch.append((char) c);
+                }
+                attributes.put(name, unescape(scratch));
+            }
+        }
+    }
+
+    /**
+     * Skips past the end of the element whose start tag was just read
+     */
+    private void skipElement() throws IOException {
+        if (endTag || emptyTag) return;
+        int depth = 1;
+        while (depth > 0 && nextTag()) {
+            if (endTag) depth--;
+            else if (!emptyTag) depth++;
+        }
+    }
+
+    private boolean isEnd(String name) {
+        return endTag && tagName.equals(name);
+    }
+
+    private String readText() throws IOException {
+        scratch.setLength(0);
+        int c;
+        while ((c = peek()) >= 0 && c != '<') {
+            scratch.append((char) c);
+            position++;
+        }
+        return unescape(scratch);
+    }
+
+    private String readName() throws IOException {
+        scratch.setLength(0);
+        int c;
+        while ((c = peek()) >= 0 && c != '=' && c != '>' && c != '/' && !isWhitespace(c)) {
+            scratch.append((char) c);
+            position++;
+        }
+        return scratch.toString();
+    }
+
+    /**
+     * Skips a comment, doctype or processing instruction, with the reader just past its '<'
+     */
+    private void skipDeclaration() throws IOException {
+        // Comments may hold '>', so they only end at "-->"
+        boolean comment = next() == '!' && peek() == '-';
+        int dashes = 0;
+        int c;
+        while ((c = next()) >= 0) {
+            if (c == '>' && (!comment || dashes >= 2)) return;
+            dashes = c == '-' ? dashes + 1 : 0;
+        }
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (isWhitespace(peek())) {
+            position++;
+        }
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private static String unescape(StringBuilder text) {
+        if (text.indexOf("&") < 0) return text.toString();
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int semicolon = c == '&' ? text.indexOf(";", i) : -1;
+            if (semicolon < 0) {
+                out.append(c);
+                continue;
+            }
+            String entity = text.substring(i + 1, semicolon);
+            if (entity.equals("lt")) out.append('<');
+            else if (entity.equals("gt")) out.append('>');
+            else if (entity.equals("amp")) out.append('&');
+            else if (entity.equals("quot")) out.append('"');
+            else if (entity.equals("apos")) out.append('\'');
+            else if (entity.startsWith("#x")) out.append((char) Integer.parseInt(entity.substring(2), 16));
+            else if (entity.startsWith("#")) out.append((char) Integer.parseInt(entity.substring(1)));
+            else out.append('&').append(entity).append(';');
+            i = semicolon;
+        }
+        return out.toString();
+    }
+
+    private String attribute(String name, String defaultValue) {
+        String value = attributes.get(name);
+        return value != null ? value : defaultValue;
+    }
+
+    private int intAttribute(String name, int defaultValue) {
+        String value = attributes.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private float floatAttribute(String name, float defaultValue) {
+        String value = attributes.get(name);
+        return value != null ? Float.parseFloat(value) : defaultValue;
+    }
+
+    private GdxRuntimeException error(String message) {
+        return new GdxRuntimeException("TMX map: " + message);
+    }
+
+    // ------------------------------------------------------------------------
+    // Characters -------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private int peek() throws IOException {
+        if (position == length) {
+            length = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (length <= 0) {
+                length = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+
+    private int next() throws IOException {
+        int c = peek();
+        if (c >= 0) position++;
+        return c;
+    }
+
+    // ------------------------------------------------------------------------
+    // Paths ------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+     * Resolves a path relative to dir the way TmxMapLoader does, where going up past the assets root stays at the root
+     */
+    public static String resolve(String dir, String source) {
+        String path = dir;
+        for (String part : source.split("/")) {
+            if (part.equals("..")) path = parent(path);
+            else if (!part.equals(".") && part.length() > 0) path = path.length() == 0 ? part : path + "/" + part;
+        }
+        return path;
+    }
+
+    public static String parent(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash < 0 ? "" : path.substring(0, slash);
+    }
+
+}
@@ -13,9 +13,9 @@ import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Pool;
 import com.badlogic.gdx.utils.Pools;
 import lando.systems.ld35.LudumDare35;
-import lando.systems.ld35.ParticleSystem.WindParticle;
-import lando.systems.ld35.backgroundobjects.Bird;
-import lando.systems.ld35.backgroundobjects.Cloud;
+import lando.systems.ld35.ParticleSystem.DustEmitter;
+import lando.systems.ld35.ParticleSystem.TrailMesh;
+import lando.systems.ld35.backgroundobjects.AmbientSystem;
 import lando.systems.ld35.gameobjects.*;
 import lando.systems.ld35.ui.StateButton;
 import lando.systems.ld35.utils.*;
@@ -34,18 +34,13 @@ public class AttractScreen extends BaseScreen {
     Rectangle buttonTrayRect;
     Array<StateButton> stateButtons;
 
-    Array<Cloud> clouds;
-    Array<Bird> birds;
+    AmbientSystem ambient;
 
-    Array<Vector2> windGrid;
-    Array<WindParticle> dustMotes;
-    boolean updateWindField;
+    DustEmitter dust;
+    TrailMesh trailMesh;
 
     float actionTimer = 1f;
 
-    int mapWidth;
-    Vector2 tempVec2;
-
     Pool<Rectangle> rectPool;
 
 
@@ -58,12 +53,12 @@ public class AttractScreen extends BaseScreen {
                 .repeatYoyo(-1, 0f)
                 .start(Assets.tween);
 
-        clouds = new Array<Cloud>();
-        birds = new Array<Bird>();
-        tempVec2 = new Vector2();
+        ambient = new AmbientSystem(Assets.ambientTables.get("attract"), Assets.ambientCapacity);
 
-        updateWindField = true;
-        dustMotes = new Array<WindParticle>();
+        dust = new DustEmitter();
+        dust.taskRunner = LudumDare35.game.resolver.taskRunner();
+        dust.parallelThreshold = LudumDare35.game.resolver.dustThreshold();
+        trailMesh = new TrailMesh(1024);
         rectPool = Pools.get(Rectangle.class);
         int levelid = MathUtils.random(1, Level.values().length -2);
         if (LudumDare35.game.resolver.showDebug()) {
@@ -73,7 +68,6 @@ public class AttractScreen extends BaseScreen {
         if (LudumDare35.game.resolver.showDebug()) {
             Gdx.app.error("Level", " " + level.levelIndex + " " + level.details.name());
         }
-        updateWindGrid();
         updateCamera(0f, true);
 
         Utils.glClearColor(Config.bgColor);
@@ -81,7 +75,7 @@ public class AttractScreen extends BaseScreen {
     }
 
     @Override
-    public void update(float dt) {
+    public void handleInput() {
         if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
             Gdx.app.exit();
         }
@@ -89,16 +83,26 @@ public class AttractScreen extends BaseScreen {
         if (Gdx.input.justTouched()) {
             LudumDare35.game.resetGame();
         }
+    }
 
+    @Override
+    public void beginTick() {
+        super.beginTick();
+        playerBalloon.beginTick();
+    }
+
+    @Override
+    public void update(float dt) {
         timer += dt;
         if (timer > LudumDare35.game.resolver.attractScreenTimer()) {
             LudumDare35.game.resetGame();
         }
 
         updateCamera(dt, false);
-        updateDust(dt);
+        dust.applyQuality(LudumDare35.game.quality);
+        dust.update(dt, level);
         Assets.particles.update(dt, level);
-        updateBackgroundObjects(dt);
+        ambient.update(dt, level, LudumDare35.game.quality);
         level.update(dt);
 
         updateFakeInput(dt);
@@ -106,10 +110,9 @@ public class AttractScreen extends BaseScreen {
         playerBalloon.update(dt, level);
 
         updateMapObjects(dt);
-        updateWinds();
 
         if (playerBalloon.currentState == Balloon.State.DEAD) {
-            loadLevel(level.levelIndex);
+            resetLevel();
         }
     }
 
@@ -180,36 +183,34 @@ public class AttractScreen extends BaseScreen {
     public void render(SpriteBatch batch) {
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
+        interpolateCamera();
+        culler.begin(camera);
         level.setView(camera);
         batch.setProjectionMatrix(camera.combined);
 
         batch.begin();
-        for (Cloud c : clouds){
-            c.render(batch, camera);
-        }
-
-        for (Bird b : birds){
-            b.render(batch);
-        }
-
-//        if (hotairBalloon != null) hotairBalloon.render(batch);
+        ambient.render(batch, camera, tickAlpha, culler);
 
         level.renderBackground();
 
-        for (WindParticle mote : dustMotes){
-            mote.render(batch);
-        }
-
-        Assets.particles.render(batch);
+        // Dust trails and particles share the mote texture, so they go out in one draw
+        trailMesh.clear();
+        trailMesh.setRegion(Assets.moteTexture);
+        dust.addTrails(trailMesh, culler);
+        Assets.particles.addQuads(trailMesh, culler);
+        trailMesh.draw(batch, Assets.moteTexture.getTexture());
 
-        level.renderForeground(batch);
+        level.renderForeground(batch, culler);
 
-        playerBalloon.render(batch);
+        playerBalloon.render(batch, tickAlpha);
 
         batch.setProjectionMatrix(hudCamera.combined);
         if (LudumDare35.game.resolver.showFPS()) {
             Assets.font.draw(batch, "FPS: " + Gdx.graphics.getFramesPerSecond(), 0, hudCamera.viewportHeight);
         }
+        if (LudumDare35.game.resolver.showDebug()) {
+            Assets.font.draw(batch, "Drawn: " + culler.drawn + " Culled: " + culler.culled, 0, hudCamera.viewportHeight - 20);
+        }
 
         if (LudumDare35.game.resolver.showDebug()) {
             batch.draw(playerBalloon.collisionTex, 0, hudCamera.viewportHeight - 80, 32, -32);
@@ -236,6 +237,12 @@ public class AttractScreen extends BaseScreen {
 //
         Assets.drawString(batch, "" + (int) (LudumDare35.game.resolver.attractScreenTimer() - timer + 1), 10, camera.viewportHeight - 10, Color.YELLOW, 0.25f);
         batch.end();
+        restoreCamera();
+    }
+
+    @Override
+    public void dispose() {
+        LudumDare35.game.levels.release(level);
     }
 
 
@@ -243,11 +250,21 @@ public class AttractScreen extends BaseScreen {
 
 
     private void loadLevel(int levelId){
-        level = new LevelInfo(levelId, rectPool);
+        level = LudumDare35.game.levels.take(levelId);
         playerBalloon = new Balloon(level.details.getStart());
         layoutUI();
     }
 
+    /**
+     * Starts the level over in place once the balloon dies, see LevelInfo.reset()
+     */
+    private void resetLevel() {
+        level.reset();
+        playerBalloon.reset(level.details.startX, level.details.startY);
+        deactivateButtons();
+        stateButtons.get(0).active = true;
+    }
+
     private void layoutUI() {
         int numButtons = 6;
         float padding = 10f;
@@ -277,47 +294,6 @@ public class AttractScreen extends BaseScreen {
         buttonTrayRect = new Rectangle(leftMargin - 10f, 0, width + 10, 52);
     }
 
-    private void updateWinds(){
-        if (updateWindField){
-            windGrid = null;
-            updateWindField = false;
-            for (int i = 0; i < level.mapObjects.size; i++ ){
-                if (level.mapObjects.get(i) instanceof Fan){
-                    Fan f = (Fan) level.mapObjects.get(i);
-                    f.calcWindField();
-                }
-            }
-            updateWindGrid();
-        }
-    }
-
-    private void updateWindGrid(){
-        int mapHeight = level.foregroundLayer.getHeight();
-
-        if (windGrid == null) {
-            mapWidth = level.foregroundLayer.getWidth();
-            windGrid = new Array<Vector2>();
-            for (int i = 0; i < mapHeight * mapWidth; i++) {
-                windGrid.add(new Vector2());
-            }
-        }
-
-        for (int i = 0; i < mapWidth * mapHeight; i++) {
-            float x = 16 + (i % mapWidth * 32);
-            float y = 16 + (i / mapWidth * 32);
-            tempVec2.set(x, y);
-            Vector2 pointV = windGrid.get(i);
-            pointV.set(0,0);
-
-            for (int j = 0; j < level.mapObjects.size; j++ ) {
-                if (level.mapObjects.get(j) instanceof Fan) {
-                    Fan f = (Fan) level.mapObjects.get(j);
-                    pointV.add(f.getWindForce(tempVec2));
-                }
-            }
-        }
-    }
-
     private void updateCamera(float dt, boolean initial){
 //        if (pauseGame) {
 //            camera.update();
@@ -329,6 +305,7 @@ public class AttractScreen extends BaseScreen {
         Vector2 dir = targetCameraPosition.cpy().sub(camera.position.x, camera.position.y);
         if (initial){
             camera.position.set(targetCameraPosition.x, targetCameraPosition.y, 0);
+            previousCameraPosition.set(camera.position);
         } else {
             camera.position.add(dir.x * dt, dir.y * dt, 0);
         }
@@ -346,167 +323,30 @@ public class AttractScreen extends BaseScreen {
     }
 
 
-    private void updateDust(float dt){
-        int newTotal = (int)(level.foregroundLayer.getWidth() * level.foregroundLayer.getHeight() * .1f);
-        for (int i = 0; i < newTotal; i++){
-            dustMotes.add(new WindParticle(new Vector2(MathUtils.random(level.foregroundLayer.getWidth()*32), MathUtils.random(level.foregroundLayer.getHeight()*32))));
-        }
-
-        for (int i = dustMotes.size -1; i >= 0; i--){
-            WindParticle mote = dustMotes.get(i);
-            int index = getWindMapIndex(mote.pos);
-            if (index >= 0 && index < windGrid.size) {
-                tempVec2.set(windGrid.get(index));
-//            for (ObjectBase obj : level.mapObjects){
-//                if (obj instanceof Fan){
-//                    Fan f = (Fan) obj;
-//                    Vector2 force = f.getWindForce(mote.pos);
-//                    if (!force.epsilonEquals( Vector2.Zero, 1f))
-//                        mote.vel.add(force.add(MathUtils.random(10f) -5f, MathUtils.random(10f) -5f).scl(dt * 10));
-//                }
-//            }
-                if (!tempVec2.epsilonEquals(Vector2.Zero, 1f))
-                    mote.vel.add(tempVec2.add(MathUtils.random(10f) - 5f, MathUtils.random(10f) - 5f).scl(dt * 10));
-            }
-            mote.update(dt);
-            if (mote.TTL < 0 || mote.vel.len2() < 50) {
-                dustMotes.removeIndex(i);
-                continue;
-            }
-            if (level.getCell((int)mote.pos.x /32, (int)mote.pos.y / 32) != null){
-                dustMotes.removeIndex(i);
-
-            }
-        }
-    }
-
-    private int getWindMapIndex(Vector2 pos){
-        int worldX = (int)pos.x / 32;
-        int worldY = (int)pos.y / 32;
-        return worldX + worldY * mapWidth;
-    }
-
-    private void updateBackgroundObjects(float dt){
-        for (int i = clouds.size -1; i >= 0; i--){
-            Cloud c = clouds.get(i);
-            c.update(dt, level);
-            if (!c.alive){
-                clouds.removeIndex(i);
-            }
-        }
-
-        while (clouds.size < level.foregroundLayer.getHeight() / 2){
-            clouds.add(new Cloud(new Vector2(level.foregroundLayer.getWidth() * 32 + MathUtils.random(200f), MathUtils.random(level.foregroundLayer.getHeight()*32))));
-        }
-
-        for (int i = birds.size -1; i >= 0; i--){
-            Bird b = birds.get(i);
-            b.update(dt, level);
-            if (!b.alive){
-                birds.removeIndex(i);
-            }
-        }
-
-        if (MathUtils.randomBoolean(.0015f)){
-            birds.add(new Bird(level));
-        }
-
-//        if (hotairBalloon != null){
-//            hotairBalloon.update(dt, level);
-//            if (!hotairBalloon.alive) hotairBalloon = null;
-//        } else {
-//            if (MathUtils.randomBoolean(.001f)){
-//                hotairBalloon = new HotairBalloon(level);
-//            }
-//        }
-    }
-
     private void updateMapObjects(float dt) {
-        for (ObjectBase obj : level.mapObjects) {
-            // Interact with level exit
-            /*
-            if (obj instanceof Exit && playerBalloon.currentState != Balloon.State.DEAD) {
-                if (playerBalloon.bounds.overlaps(obj.getBounds())) {
-//                    pauseGame = true;
-                    playerBalloon.changeState(Balloon.State.NORMAL);
-                    Tween.to(playerBalloon.position, Vector2Accessor.XY, 2f)
-                            .target(obj.realWorldBounds.x, obj.realWorldBounds.y)
-                            .ease(Elastic.OUT)
-                            .start(Assets.tween);
-                    Timeline.createSequence()
-                            .push(Tween.to(camera, CameraAccessor.XYZ, 1.5f)
-                                    .target(obj.center.x, obj.center.y, .1f)
-                                    .ease(Quad.OUT))
-                            .pushPause(.5f)
-                            .push(Tween.call(new TweenCallback() {
-                                @Override
-                                public void onEvent(int i, BaseTween<?> baseTween) {
-                                    dustMotes.clear();
-//                                    timeoutDelay = 0;
-
-                                    Assets.setMaxLevelCompleted(level.levelIndex + 1);
-                                    level.nextLevel();
-                                    updateWindField = true;
-                                    Statistics.numLevelsCompleted = Assets.getMaxLevelCompleted();
-                                    // TODO: check for game over
-//                                    enableButtons();
-
-                                    playerBalloon = new Balloon(level.details.getStart());
-                                    for (StateButton button : stateButtons) {
-                                        button.active = false;
-                                    }
-                                    stateButtons.get(0).active = true;
-                                    camera.position.x = playerBalloon.center.x;
-                                    camera.position.y = playerBalloon.center.y;
-                                    Vector2 camtarget = getCameraTarget();
-                                    Tween.to(camera, CameraAccessor.XYZ, 1f)
-                                            .target(camtarget.x, camtarget.y, 1)
-                                            .ease(Quad.IN)
-                                            .setCallback(new TweenCallback() {
-                                                @Override
-                                                public void onEvent(int type, BaseTween<?> source) {
-                                                    pauseGame = false;
-                                                }
-                                            })
-                                            .start(Assets.tween);
-                                }
-                            }))
-                            .start(Assets.tween);
-                }
-            }
-            */
-
-            if (obj instanceof Spikes) {
-                if (obj.collision(playerBalloon) != null) {
-                    actionTimer = 2f; // DON'T change states when dead!
-                    playerBalloon.kill(level);
-                }
-            }
-            if (obj instanceof Door){
-                Door d = (Door) obj;
-                if (d.updateWindField){
-                    d.updateWindField = false;
-                    updateWindField = true;
-                }
-            }
-            if (obj instanceof Rope) {
-                if (playerBalloon.currentState == Balloon.State.BUZZSAW && obj.collision(playerBalloon) != null) {
-                    // TODO: Animate this?  Maybe some particle effects?
-                    // Kill the rope!
-                    SoundManager.playSound(SoundManager.SoundOptions.RopeSnap);
-                    String ropeGroupName = ((Rope) obj).getGroupName();
-                    Array<Rope> ropeGroup = level.ropeGroups.get(ropeGroupName);
-                    if (ropeGroup != null) {
-                        level.mapObjects.removeAll(ropeGroup, true);
-                        Array<TriggerableEntity> objectsToTrigger = level.triggeredByRopeGroup.get(ropeGroupName);
-                        for (TriggerableEntity triggerableEntity : objectsToTrigger) {
-                            triggerableEntity.onTrigger();
-                        }
-                    }
+        // The balloon notes exits, spikes and ropes at each collision step, so a fast one can't skip past them
+        if (playerBalloon.hitSpikes) {
+            actionTimer = 2f; // DON'T change states when dead!
+            playerBalloon.kill(level);
+        }
+        for (int n = 0; n < playerBalloon.cutRopes.size; n++) {
+            Rope rope = playerBalloon.cutRopes.get(n);
+            // Already gone with an earlier rope in its group
+            if (rope.isRemoved()) continue;
+            // TODO: Animate this?  Maybe some particle effects?
+            // Kill the rope!
+            SoundManager.playSound(SoundManager.SoundOptions.RopeSnap);
+            String ropeGroupName = rope.getGroupName();
+            Array<Rope> ropeGroup = level.ropeGroups.get(ropeGroupName);
+            if (ropeGroup != null) {
+                level.removeObjects(ropeGroup);
+                Array<TriggerableEntity> objectsToTrigger = level.triggeredByRopeGroup.get(ropeGroupName);
+                for (TriggerableEntity triggerableEntity : objectsToTrigger) {
+                    triggerableEntity.onTrigger();
                 }
             }
-            // TODO: interact with other stuff
         }
+        // TODO: interact with other stuff
     }
 
 
@@ -4,7 +4,9 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Vector3;
 import lando.systems.ld35.utils.Config;
+import lando.systems.ld35.utils.ViewCuller;
 
 /**
  * Brian Ploeckelman created on 1/17/2016.
@@ -14,6 +16,14 @@ public abstract class BaseScreen implements InputProcessor {
     public OrthographicCamera camera;
     public OrthographicCamera hudCamera;
 
+    // How far the current frame is between the last two simulation ticks, 0..1, set before render()
+    public float tickAlpha = 1f;
+
+    protected final Vector3    previousCameraPosition = new Vector3();
+    private   final Vector3    tickCameraPosition     = new Vector3();
+    // What the camera sees this frame, and how much was drawn or skipped
+    protected final ViewCuller culler                 = new ViewCuller();
+
     public BaseScreen() {
         float aspect = Gdx.graphics.getWidth() / (float) Gdx.graphics.getHeight();
         camera = new OrthographicCamera(Config.gameWidth, Config.gameWidth / aspect);
@@ -28,6 +38,38 @@ public abstract class BaseScreen implements InputProcessor {
     public abstract void update(float dt);
     public abstract void render(SpriteBatch batch);
 
+    /**
+     * Called once another screen has replaced this one
+     */
+    public void dispose() {}
+
+    /**
+     * Called once per rendered frame, before any simulation ticks run. Polled 'just pressed' input belongs here,
+     * since a frame can run several ticks or none at all.
+     */
+    public void handleInput() {}
+
+    /**
+     * Called before each update(), snapshots whatever render() interpolates from
+     */
+    public void beginTick() {
+        previousCameraPosition.set(camera.position);
+    }
+
+    /**
+     * Moves the camera to where it was tickAlpha of the way through the last tick, until restoreCamera()
+     */
+    protected void interpolateCamera() {
+        tickCameraPosition.set(camera.position);
+        camera.position.set(previousCameraPosition).lerp(tickCameraPosition, tickAlpha);
+        camera.update();
+    }
+
+    protected void restoreCamera() {
+        camera.position.set(tickCameraPosition);
+        camera.update();
+    }
+
     @Override
     public boolean keyDown(int keycode) {
         return false;
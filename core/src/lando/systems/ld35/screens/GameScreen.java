@@ -22,11 +22,9 @@ import com.badlogic.gdx.utils.Pool;
 import com.badlogic.gdx.utils.Pools;
 import com.badlogic.gdx.utils.TimeUtils;
 import lando.systems.ld35.LudumDare35;
-import lando.systems.ld35.ParticleSystem.WindParticle;
-import lando.systems.ld35.backgroundobjects.Bird;
-import lando.systems.ld35.backgroundobjects.Cloud;
-import lando.systems.ld35.backgroundobjects.HotairBalloon;
-import lando.systems.ld35.backgroundobjects.Ufo;
+import lando.systems.ld35.ParticleSystem.DustEmitter;
+import lando.systems.ld35.ParticleSystem.TrailMesh;
+import lando.systems.ld35.backgroundobjects.AmbientSystem;
 import lando.systems.ld35.gameobjects.*;
 import lando.systems.ld35.ui.Button;
 import lando.systems.ld35.ui.StateButton;
@@ -47,43 +45,40 @@ public class GameScreen extends BaseScreen {
     LevelInfo           level;
     String              levelName;
     Balloon             playerBalloon;
-    Array<WindParticle> dustMotes;
-    Array<Cloud>        clouds;
-    Array<Bird>         birds;
-    HotairBalloon       hotairBalloon;
-    Ufo                 ufo;
+    DustEmitter         dust;
+    TrailMesh           trailMesh;
+    AmbientSystem       ambient;
     Array<StateButton>  stateButtons;
     Button              resetLevelButton;
     Button              mainMenuButton;
     Pool<Rectangle>     rectPool;
     Rectangle           buttonTrayRect;
     boolean             pauseGame;
-    boolean             updateWindField;
     boolean             drawStats;
     Color               retryTextColor;
     Color               levelNameColor;
-    Array<Vector2>      windGrid;
-    int                 mapWidth;
-    Vector2             tempVec2;
     TouchAnimation      touchPoint;
     float               timeoutDelay;
     float               continueTimer;
+    // Level waiting on the loader to follow this one
+    int                 pendingLevel = NO_LEVEL;
+
+    private static final int NO_LEVEL = -1;
 
     public GameScreen(int levelIndex) {
         super();
         timeoutDelay = 0;
-        tempVec2 = new Vector2();
         touchPoint = new TouchAnimation();
         pauseGame = false;
-        updateWindField = true;
         drawStats = false;
         rectPool = Pools.get(Rectangle.class);
-        dustMotes = new Array<WindParticle>();
-        clouds = new Array<Cloud>();
-        birds = new Array<Bird>();
+        dust = new DustEmitter();
+        dust.taskRunner = LudumDare35.game.resolver.taskRunner();
+        dust.parallelThreshold = LudumDare35.game.resolver.dustThreshold();
+        trailMesh = new TrailMesh(1024);
+        ambient = new AmbientSystem(Assets.ambientTables.get("game"), Assets.ambientCapacity);
         retryTextColor = new Color(Config.balloonColor);
         loadLevel(levelIndex);
-        updateWindGrid();
         updateCamera(0f, true);
 
         Utils.glClearColor(Config.bgColor);
@@ -103,8 +98,28 @@ public class GameScreen extends BaseScreen {
     // BaseScreen Implementation ----------------------------------------------
     // ------------------------------------------------------------------------
 
+    @Override
+    public void handleInput() {
+        if (Gdx.input.justTouched()){
+            timeoutDelay = 0;
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
+            LudumDare35.game.screen = new LevelSelectScreen(level.levelIndex);
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.P)) {
+            pauseGame = !pauseGame;
+        }
+    }
+
+    @Override
+    public void beginTick() {
+        super.beginTick();
+        playerBalloon.beginTick();
+    }
+
     @Override
     public void update(float dt) {
+        updatePendingLevel();
         timeoutDelay += dt;
         if (playerBalloon.currentState == Balloon.State.DEAD) {
             continueTimer += dt;
@@ -112,27 +127,18 @@ public class GameScreen extends BaseScreen {
                 LudumDare35.game.resetGame();
             }
         }
-        if (Gdx.input.justTouched()){
-            timeoutDelay = 0;
-        }
 
         if (timeoutDelay > LudumDare35.game.resolver.limitTimer() && playerBalloon.currentState != Balloon.State.DEAD){
             setShowContinue();
         }
 
-        if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
-            LudumDare35.game.screen = new LevelSelectScreen(level.levelIndex);
-        }
-        if (Gdx.input.isKeyJustPressed(Input.Keys.P)) {
-            pauseGame = !pauseGame;
-        }
-
 
         touchPoint.update(dt);
         updateCamera(dt, false);
-        updateDust(dt);
+        dust.applyQuality(LudumDare35.game.quality);
+        dust.update(dt, level);
         Assets.particles.update(dt, level);
-        updateBackgroundObjects(dt);
+        ambient.update(dt, level, LudumDare35.game.quality);
         level.update(dt);
 
         if (pauseGame) { // Don't move the player or check for interactions
@@ -141,40 +147,37 @@ public class GameScreen extends BaseScreen {
         playerBalloon.update(dt, level);
 
         updateMapObjects(dt);
-        updateWinds();
     }
 
     @Override
     public void render(SpriteBatch batch) {
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
+        interpolateCamera();
+        culler.begin(camera);
         level.setView(camera);
         batch.setProjectionMatrix(camera.combined);
 
         batch.begin();
-        for (Cloud c : clouds){
-            c.render(batch, camera);
-        }
-
-        for (Bird b : birds){
-            b.render(batch);
-        }
-
-        if (hotairBalloon != null) hotairBalloon.render(batch);
-        if (ufo != null) ufo.render(batch);
+        ambient.render(batch, camera, tickAlpha, culler);
 
         level.renderBackground();
-        for (WindParticle mote : dustMotes){
-            mote.render(batch);
-        }
-        Assets.particles.render(batch);
-        level.renderForeground(batch);
-        playerBalloon.render(batch);
+        // Dust trails and particles share the mote texture, so they go out in one draw
+        trailMesh.clear();
+        trailMesh.setRegion(Assets.moteTexture);
+        dust.addTrails(trailMesh, culler);
+        Assets.particles.addQuads(trailMesh, culler);
+        trailMesh.draw(batch, Assets.moteTexture.getTexture());
+        level.renderForeground(batch, culler);
+        playerBalloon.render(batch, tickAlpha);
 
         batch.setProjectionMatrix(hudCamera.combined);
         if (LudumDare35.game.resolver.showFPS()) {
             Assets.font.draw(batch, "FPS: " + Gdx.graphics.getFramesPerSecond(), 0, hudCamera.viewportHeight);
         }
+        if (LudumDare35.game.resolver.showDebug()) {
+            Assets.font.draw(batch, "Drawn: " + culler.drawn + " Culled: " + culler.culled, 0, hudCamera.viewportHeight - 20);
+        }
         if (LudumDare35.game.resolver.showDebug()) {
             batch.draw(playerBalloon.collisionTex, 0, hudCamera.viewportHeight - 80, 32, -32);
         }
@@ -265,6 +268,12 @@ public class GameScreen extends BaseScreen {
         }
         batch.end();
         batch.setShader(null);
+        restoreCamera();
+    }
+
+    @Override
+    public void dispose() {
+        LudumDare35.game.levels.release(level);
     }
 
     // ------------------------------------------------------------------------
@@ -353,14 +362,59 @@ public class GameScreen extends BaseScreen {
     // ------------------------------------------------------------------------
 
     private void loadLevel(int levelId){
-        level = new LevelInfo(levelId, rectPool);
+        setLevel(LudumDare35.game.levels.take(levelId));
         playerBalloon = new Balloon(level.details.getStart());
         layoutUI();
     }
 
+    private void setLevel(LevelInfo nextLevel) {
+        if (level != null) LudumDare35.game.levels.release(level);
+        level = nextLevel;
+        // Load the next level for when this one is beaten, retries reset this one in place
+        LudumDare35.game.levels.prefetch(level.levelIndex + 1);
+    }
+
+    /**
+     * Starts the level over without loading anything, see LevelInfo.reset()
+     */
     private void resetLevel(){
-        // TODO reset the level quickly
-        loadLevel(level.levelIndex);
+        level.reset();
+        playerBalloon.reset(level.details.startX, level.details.startY);
+        resetButtons();
+    }
+
+    private void resetButtons() {
+        for (StateButton button : stateButtons) {
+            button.active = false;
+        }
+        stateButtons.get(0).active = true;
+        enableButtons();
+    }
+
+    /**
+     * Swaps in the level after this one once the loader has it ready
+     */
+    private void updatePendingLevel() {
+        if (pendingLevel == NO_LEVEL || !LudumDare35.game.levels.isReady(pendingLevel)) return;
+        setLevel(LudumDare35.game.levels.take(pendingLevel));
+        pendingLevel = NO_LEVEL;
+        playerBalloon.reset(level.details.startX, level.details.startY);
+        resetButtons();
+        camera.position.x = playerBalloon.center.x;
+        camera.position.y = playerBalloon.center.y;
+        // A cut to the new level, nothing to interpolate from the old one
+        previousCameraPosition.set(camera.position);
+        Vector2 camtarget = getCameraTarget();
+        Tween.to(camera, CameraAccessor.XYZ, 1f)
+                .target(camtarget.x, camtarget.y, 1)
+                .ease(Quad.IN)
+                .setCallback(new TweenCallback() {
+                    @Override
+                    public void onEvent(int type, BaseTween<?> source) {
+                        pauseGame = false;
+                    }
+                })
+                .start(Assets.tween);
     }
 
     private void layoutUI() {
@@ -418,195 +472,73 @@ public class GameScreen extends BaseScreen {
         if (initial){
             targetCameraPosition.add(camera.position.x, camera.position.y);
             camera.position.set(targetCameraPosition.x, targetCameraPosition.y, 0);
+            previousCameraPosition.set(camera.position);
         } else {
             camera.position.add(dir.x * dt, dir.y * dt, 0);
         }
         camera.update();
     }
 
-    private void updateDust(float dt){
-        int newTotal = (int)(level.foregroundLayer.getWidth() * level.foregroundLayer.getHeight() * .1f);
-        for (int i = 0; i < newTotal; i++){
-            dustMotes.add(new WindParticle(new Vector2(MathUtils.random(level.foregroundLayer.getWidth()*32), MathUtils.random(level.foregroundLayer.getHeight()*32))));
-        }
-
-        for (int i = dustMotes.size -1; i >= 0; i--){
-            WindParticle mote = dustMotes.get(i);
-            int index = getWindMapIndex(mote.pos);
-            if (index >= 0 && index < windGrid.size) {
-                tempVec2.set(windGrid.get(index));
-//            for (ObjectBase obj : level.mapObjects){
-//                if (obj instanceof Fan){
-//                    Fan f = (Fan) obj;
-//                    Vector2 force = f.getWindForce(mote.pos);
-//                    if (!force.epsilonEquals( Vector2.Zero, 1f))
-//                        mote.vel.add(force.add(MathUtils.random(10f) -5f, MathUtils.random(10f) -5f).scl(dt * 10));
-//                }
-//            }
-                if (!tempVec2.epsilonEquals(Vector2.Zero, 1f))
-                    mote.vel.add(tempVec2.add(MathUtils.random(10f) - 5f, MathUtils.random(10f) - 5f).scl(dt * 10));
-            }
-            mote.update(dt);
-            if (mote.TTL < 0 || mote.vel.len2() < 50) {
-                dustMotes.removeIndex(i);
-                continue;
-            }
-            if (level.getCell((int)mote.pos.x /32, (int)mote.pos.y / 32) != null){
-                dustMotes.removeIndex(i);
-
-            }
-        }
-    }
-
-    private void updateBackgroundObjects(float dt){
-        for (int i = clouds.size -1; i >= 0; i--){
-            Cloud c = clouds.get(i);
-            c.update(dt, level);
-            if (!c.alive){
-                clouds.removeIndex(i);
-            }
-        }
-
-        while (clouds.size < level.foregroundLayer.getHeight() / 2){
-            clouds.add(new Cloud(new Vector2(level.foregroundLayer.getWidth() * 32 + MathUtils.random(200f), MathUtils.random(level.foregroundLayer.getHeight()*32))));
-        }
-
-        for (int i = birds.size -1; i >= 0; i--){
-            Bird b = birds.get(i);
-            b.update(dt, level);
-            if (!b.alive){
-                birds.removeIndex(i);
-            }
-        }
-
-        if (MathUtils.randomBoolean(.0015f)){
-            birds.add(new Bird(level));
-        }
-
-        if (hotairBalloon != null){
-            hotairBalloon.update(dt, level);
-            if (!hotairBalloon.alive) hotairBalloon = null;
-        } else {
-            if (MathUtils.randomBoolean(.001f)){
-                hotairBalloon = new HotairBalloon(level);
-            }
-        }
-
-        if (ufo != null) {
-            ufo.update(dt, level);
-            if (!ufo.alive) {
-                ufo = null;
-            }
-        } else {
-            if (MathUtils.randomBoolean(.0005f)) {
-                ufo = new Ufo(level);
-            }
+    private void updateMapObjects(float dt) {
+        // The balloon notes exits, spikes and ropes at each collision step, so a fast one can't skip past them
+        // Interact with level exit
+        Exit exit = playerBalloon.reachedExit;
+        if (exit != null) {
+            pauseGame = true;
+            playerBalloon.changeState(Balloon.State.NORMAL);
+            Tween.to(playerBalloon.position, Vector2Accessor.XY, 2f)
+                    .target(exit.realWorldBounds.x, exit.realWorldBounds.y)
+                    .ease(Elastic.OUT)
+                    .start(Assets.tween);
+            Timeline.createSequence()
+                    .push(Tween.to(camera, CameraAccessor.XYZ, 1.5f)
+                            .target(exit.center.x, exit.center.y, .1f)
+                            .ease(Quad.OUT))
+                    .pushPause(.5f)
+                    .push(Tween.call(new TweenCallback() {
+                        @Override
+                        public void onEvent(int i, BaseTween<?> baseTween) {
+                            dust.clear();
+                            timeoutDelay = 0;
+                            Assets.setMaxLevelCompleted(level.levelIndex + 1);
+                            Statistics.numLevelsCompleted = Assets.getMaxLevelCompleted();
+
+                            // check for finished last level, and if so, reload level select screen
+                            if (level.levelIndex + 1 >= Level.values().length) {
+                                LudumDare35.game.screen = new LevelSelectScreen(-1);
+                                return;
+                            }
+
+                            // Started as soon as the loader has it, which it usually already does
+                            pendingLevel = level.levelIndex + 1;
+                            LudumDare35.game.levels.prefetch(pendingLevel);
+                        }
+                    }))
+                    .start(Assets.tween);
         }
-    }
 
-    private void updateWinds(){
-        if (updateWindField){
-            windGrid = null;
-            updateWindField = false;
-            for (int i = 0; i < level.mapObjects.size; i++ ){
-                if (level.mapObjects.get(i) instanceof Fan){
-                    Fan f = (Fan) level.mapObjects.get(i);
-                    f.calcWindField();
-                }
-            }
-            updateWindGrid();
+        if (playerBalloon.hitSpikes) {
+            playerBalloon.kill(level);
+            continueTimer = 0;
         }
-    }
-
-    private void updateMapObjects(float dt) {
-        for (ObjectBase obj : level.mapObjects) {
-            // Interact with level exit
-            if (obj instanceof Exit && playerBalloon.currentState != Balloon.State.DEAD) {
-                if (playerBalloon.bounds.overlaps(obj.getBounds())) {
-                    pauseGame = true;
-                    playerBalloon.changeState(Balloon.State.NORMAL);
-                    Tween.to(playerBalloon.position, Vector2Accessor.XY, 2f)
-                            .target(obj.realWorldBounds.x, obj.realWorldBounds.y)
-                            .ease(Elastic.OUT)
-                            .start(Assets.tween);
-                    Timeline.createSequence()
-                            .push(Tween.to(camera, CameraAccessor.XYZ, 1.5f)
-                                    .target(obj.center.x, obj.center.y, .1f)
-                                    .ease(Quad.OUT))
-                            .pushPause(.5f)
-                            .push(Tween.call(new TweenCallback() {
-                                @Override
-                                public void onEvent(int i, BaseTween<?> baseTween) {
-                                    dustMotes.clear();
-                                    timeoutDelay = 0;
-                                    Assets.setMaxLevelCompleted(level.levelIndex + 1);
-                                    level.nextLevel();
-                                    updateWindField = true;
-                                    Statistics.numLevelsCompleted = Assets.getMaxLevelCompleted();
-
-                                    // check for finished last level, and if so, reload level select screen
-                                    if (level.levelIndex == -1) {
-                                        LudumDare35.game.screen = new LevelSelectScreen(level.levelIndex);
-                                    }
-
-                                    enableButtons();
-                                    playerBalloon = new Balloon(level.details.getStart());
-                                    for (StateButton button : stateButtons) {
-                                        button.active = false;
-                                    }
-                                    stateButtons.get(0).active = true;
-                                    camera.position.x = playerBalloon.center.x;
-                                    camera.position.y = playerBalloon.center.y;
-                                    Vector2 camtarget = getCameraTarget();
-                                    Tween.to(camera, CameraAccessor.XYZ, 1f)
-                                            .target(camtarget.x, camtarget.y, 1)
-                                            .ease(Quad.IN)
-                                            .setCallback(new TweenCallback() {
-                                                @Override
-                                                public void onEvent(int type, BaseTween<?> source) {
-                                                    pauseGame = false;
-                                                }
-                                            })
-                                            .start(Assets.tween);
-                                }
-                            }))
-                            .start(Assets.tween);
+        for (int n = 0; n < playerBalloon.cutRopes.size; n++) {
+            Rope rope = playerBalloon.cutRopes.get(n);
+            // Already gone with an earlier rope in its group
+            if (rope.isRemoved()) continue;
+            // TODO: Animate this?  Maybe some particle effects?
+            // Kill the rope!
+            SoundManager.playSound(SoundManager.SoundOptions.RopeSnap);
+            String ropeGroupName = rope.getGroupName();
+            Array<Rope> ropeGroup = level.ropeGroups.get(ropeGroupName);
+            if (ropeGroup != null) {
+                level.removeObjects(ropeGroup);
+                Array<TriggerableEntity> objectsToTrigger = level.triggeredByRopeGroup.get(ropeGroupName);
+                for (TriggerableEntity triggerableEntity : objectsToTrigger) {
+                    triggerableEntity.onTrigger();
                 }
             }
-
-            if (obj instanceof Spikes) {
-                if (obj.collision(playerBalloon) != null) {
-                    if (playerBalloon.currentState != Balloon.State.POP && playerBalloon.currentState != Balloon.State.DEAD) {
-                        playerBalloon.kill(level);
-                        continueTimer = 0;
-                    }
-                }
-            }
-            if (obj instanceof Door){
-                Door d = (Door) obj;
-                if (d.updateWindField){
-                    d.updateWindField = false;
-                    updateWindField = true;
-                }
-            }
-            if (obj instanceof Rope) {
-                if (playerBalloon.currentState == Balloon.State.BUZZSAW && obj.collision(playerBalloon) != null) {
-                    // TODO: Animate this?  Maybe some particle effects?
-                    // Kill the rope!
-                    SoundManager.playSound(SoundManager.SoundOptions.RopeSnap);
-                    String ropeGroupName = ((Rope) obj).getGroupName();
-                    Array<Rope> ropeGroup = level.ropeGroups.get(ropeGroupName);
-                    if (ropeGroup != null) {
-                        level.mapObjects.removeAll(ropeGroup, true);
-                        Array<TriggerableEntity> objectsToTrigger = level.triggeredByRopeGroup.get(ropeGroupName);
-                        for (TriggerableEntity triggerableEntity : objectsToTrigger) {
-                            triggerableEntity.onTrigger();
-                        }
-                    }
-                }
-            }
-            // TODO: interact with other stuff
         }
+        // TODO: interact with other stuff
     }
 
     private void handleHotkeys(int keycode) {
@@ -656,36 +588,6 @@ public class GameScreen extends BaseScreen {
             , "Thanks for playing!"
     };
 
-    private void updateWindGrid(){
-        int mapHeight = level.foregroundLayer.getHeight();
-        if (windGrid == null){
-            mapWidth = level.foregroundLayer.getWidth();
-            windGrid = new Array<Vector2>();
-            for (int i = 0; i < mapHeight * mapWidth; i++){
-                windGrid.add(new Vector2());
-            }
-        }
-        for (int i = 0; i < mapWidth * mapHeight; i++){
-            float x = 16 + (i % mapWidth * 32);
-            float y = 16 + (i /mapWidth * 32);
-            tempVec2.set(x, y);
-            Vector2 pointV = windGrid.get(i);
-            pointV.set(0,0);
-            for (int j = 0; j < level.mapObjects.size; j++ ){
-                if (level.mapObjects.get(j) instanceof Fan){
-                    Fan f = (Fan) level.mapObjects.get(j);
-                    pointV.add(f.getWindForce(tempVec2));
-                }
-            }
-        }
-    }
-
-    private int getWindMapIndex(Vector2 pos){
-        int worldX = (int)pos.x / 32;
-        int worldY = (int)pos.y / 32;
-        return worldX + worldY * mapWidth;
-    }
-
     private void drawStatisticsText(SpriteBatch batch) {
         if (!drawStats) return;
         if (layout == null) layout = new GlyphLayout();
@@ -90,14 +90,18 @@ public class LevelSelectScreen extends BaseScreen {
     }
 
     @Override
-    public void update(float dt) {
+    public void handleInput() {
         if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
             LudumDare35.game.screen = new MenuScreen();
         }
-        timeoutTimer += dt;
         if (Gdx.input.justTouched()){
             timeoutTimer = 0;
         }
+    }
+
+    @Override
+    public void update(float dt) {
+        timeoutTimer += dt;
         if (timeoutTimer > LudumDare35.game.resolver.limitTimer()){
             LudumDare35.game.resetGame();
         }
@@ -237,6 +241,39 @@ public class LevelSelectScreen extends BaseScreen {
     private Vector2 touchPosScreen    = new Vector2();
     private Vector3 touchPosUnproject = new Vector3();
 
+    private Vector3 hoverPos          = new Vector3();
+    private int     hoveredLevel      = -1;
+
+    @Override
+    public boolean mouseMoved(int screenX, int screenY) {
+        prefetchLevelAt(screenX, screenY);
+        return false;
+    }
+
+    @Override
+    public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+        prefetchLevelAt(screenX, screenY);
+        return false;
+    }
+
+    /**
+     * Starts loading the level under the pointer, so it is likely ready by the time its button is let go of
+     */
+    private void prefetchLevelAt(int screenX, int screenY) {
+        if (showConfirmDlg) return;
+        hudCamera.unproject(hoverPos.set(screenX, screenY, 0));
+        for (LevelButton levelButton : buttons) {
+            if (levelButton.active && levelButton.checkForTouch(hoverPos.x, hoverPos.y)) {
+                if (levelButton.levelId != hoveredLevel) {
+                    hoveredLevel = levelButton.levelId;
+                    LudumDare35.game.levels.prefetch(hoveredLevel);
+                }
+                return;
+            }
+        }
+        hoveredLevel = -1;
+    }
+
     @Override
     public boolean touchUp(int screenX, int screenY, int pointer, int button) {
         touchPosUnproject = hudCamera.unproject(new Vector3(screenX, screenY, 0));
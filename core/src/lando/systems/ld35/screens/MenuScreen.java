@@ -46,7 +46,7 @@ public class MenuScreen extends BaseScreen {
     }
 
     @Override
-    public void update(float dt) {
+    public void handleInput() {
         if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
             Gdx.app.exit();
         }
@@ -54,7 +54,10 @@ public class MenuScreen extends BaseScreen {
         if (Gdx.input.justTouched()) {
             LudumDare35.game.screen = new LevelSelectScreen(0);
         }
+    }
 
+    @Override
+    public void update(float dt) {
         color.set(1f, 1f, 1f, alpha.floatValue());
 
         timer += dt;
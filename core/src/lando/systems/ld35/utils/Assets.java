@@ -22,9 +22,14 @@ import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
 import lando.systems.ld35.LudumDare35;
 import lando.systems.ld35.ParticleSystem.ParticleManager;
+import lando.systems.ld35.backgroundobjects.AmbientType;
 import lando.systems.ld35.utils.accessors.*;
 
 /**
@@ -81,6 +86,11 @@ public class Assets {
 
     public static Animation[] birdAnimations;
 
+    public static ObjectMap<String, Array<AmbientType>> ambientTables;
+    public static int                                   ambientCapacity;
+
+    public static CollisionMasks balloonMasks;
+
     public static Animation netAnimation;
     public static Animation fanAnimation;
 
@@ -179,6 +189,25 @@ public class Assets {
         netAnimation = new Animation(.1f, atlas.findRegions("net"));
         netAnimation.setPlayMode(Animation.PlayMode.LOOP);
 
+        // Every frame the balloon can show gets its pixel mask up front, drawn at the balloon's 32x32 size
+        balloonMasks = new CollisionMasks();
+        Animation[] balloonAnimations = new Animation[] {
+                balloonToBalloonAnimation, balloonToRocketAnimation, balloonToWeightAnimation, balloonToMagnetAnimation,
+                balloonToBuzzsawAnimation, balloonToTorusAnimation, balloonToPopAnimation, buzzsawAnimation
+        };
+        for (Animation animation : balloonAnimations) {
+            for (TextureRegion frame : animation.getKeyFrames()) {
+                balloonMasks.get(frame, 32, 32, 0, false);
+            }
+        }
+        TextureRegion[] balloonTextures = new TextureRegion[] {
+                balloonTexture, rocketTexture, weightTexture, torusTexture, magnetTexture, buzzsawTexture, deadTexture
+        };
+        for (TextureRegion texture : balloonTextures) {
+            balloonMasks.get(texture, 32, 32, 0, false);
+        }
+        balloonMasks.finishLoading();
+
         birdAnimations = new Animation[3];
         birdAnimations[0] = new Animation(.02f, atlas.findRegions("birdgreen"));
         birdAnimations[0].setPlayMode(Animation.PlayMode.LOOP);
@@ -187,6 +216,20 @@ public class Assets {
         birdAnimations[2] = new Animation(.2f, atlas.findRegions("birdgull"));
         birdAnimations[2].setPlayMode(Animation.PlayMode.LOOP_PINGPONG);
 
+        // Sprites the background types in ambient.json can ask for by name
+        ObjectMap<String, Animation[]> ambientSprites = new ObjectMap<String, Animation[]>();
+        Animation[] cloudAnimations = new Animation[cloudTextures.length];
+        for (int i = 0; i < cloudTextures.length; i++) {
+            cloudAnimations[i] = new Animation(1f, cloudTextures[i]);
+        }
+        ambientSprites.put("clouds", cloudAnimations);
+        ambientSprites.put("birds", birdAnimations);
+        ambientSprites.put("hotair", new Animation[] { new Animation(1f, hotairTexture) });
+        ambientSprites.put("ufo", new Animation[] { new Animation(1f, ufoTexture) });
+        JsonValue ambient = new JsonReader().parse(Gdx.files.internal("ambient.json"));
+        ambientTables = AmbientType.loadTables(ambient, ambientSprites);
+        ambientCapacity = ambient.getInt("capacity");
+
         Texture distText = new Texture(Gdx.files.internal("fonts/simply_round_32.png"), true);
         distText.setFilter(Texture.TextureFilter.MipMapLinearNearest, Texture.TextureFilter.Linear);
 
@@ -0,0 +1,203 @@
+package lando.systems.ld35.utils;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Bit-packed opacity of a texture region, built once and queried instead of the region's pixmap.
+ *
+ * Row 0 is the bottom row of the region (world space is y-up), and bit i of a row word is pixel column i,
+ * so a 32px wide region is exactly one int per row.
+ */
+public class CollisionMask {
+
+    public final int   width;
+    public final int   height;
+    public final int   wordsPerRow;
+    public final int[] bits;
+    // Where row 0, column 0 sits relative to the bottom left of the owner's bounds
+    public final int   offsetX;
+    public final int   offsetY;
+
+    public CollisionMask(int width, int height) {
+        this(width, height, 0, 0);
+    }
+
+    public CollisionMask(int width, int height, int offsetX, int offsetY) {
+        this.width = width;
+        this.height = height;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.wordsPerRow = (width + 31) >>> 5;
+        this.bits = new int[wordsPerRow * height];
+    }
+
+    public static CollisionMask full(int width, int height) {
+        CollisionMask mask = new CollisionMask(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                mask.set(x, y);
+            }
+        }
+        return mask;
+    }
+
+    public static CollisionMask fromPixmap(Pixmap pixmap, int regionX, int regionY, int width, int height) {
+        CollisionMask mask = new CollisionMask(width, height);
+        for (int y = 0; y < height; y++) {
+            int texY = regionY + (height - 1 - y);
+            for (int x = 0; x < width; x++) {
+                int pix = pixmap.getPixel(regionX + x, texY);
+                if ((pix & 0xFF) != 0x00) mask.set(x, y);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Resamples source the way SpriteBatch.draw(region, x, y, originX, originY, width, height, scaleX, 1, rotation)
+     * would place it, relative to (x, y). Each destination pixel center is taken back through the inverse transform,
+     * so rotated masks come out without holes, and the result is offset to the transformed bounding box.
+     */
+    public static CollisionMask transformed(CollisionMask source, float width, float height,
+                                            float originX, float originY, float scaleX, float rotation) {
+        float cos = MathUtils.cosDeg(rotation);
+        float sin = MathUtils.sinDeg(rotation);
+
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int corner = 0; corner < 4; corner++) {
+            float lx = (corner & 1) == 0 ? 0 : width;
+            float ly = (corner & 2) == 0 ? 0 : height;
+            float px = scaleX * (lx - originX);
+            float py = ly - originY;
+            float wx = originX + px * cos - py * sin;
+            float wy = originY + px * sin + py * cos;
+            minX = Math.min(minX, wx);
+            minY = Math.min(minY, wy);
+            maxX = Math.max(maxX, wx);
+            maxY = Math.max(maxY, wy);
+        }
+        int offsetX = MathUtils.round(minX);
+        int offsetY = MathUtils.round(minY);
+        CollisionMask mask = new CollisionMask(Math.max(1, MathUtils.round(maxX) - offsetX),
+                                               Math.max(1, MathUtils.round(maxY) - offsetY),
+                                               offsetX, offsetY);
+
+        float texelsPerUnitX = source.width / width;
+        float texelsPerUnitY = source.height / height;
+        for (int y = 0; y < mask.height; y++) {
+            float dy = offsetY + y + 0.5f - originY;
+            for (int x = 0; x < mask.width; x++) {
+                float dx = offsetX + x + 0.5f - originX;
+                float lx = (dx * cos + dy * sin) / scaleX + originX;
+                float ly = -dx * sin + dy * cos + originY;
+                if (lx < 0 || ly < 0 || lx >= width || ly >= height) continue;
+                if (source.get((int) (lx * texelsPerUnitX), (int) (ly * texelsPerUnitY))) mask.set(x, y);
+            }
+        }
+        return mask;
+    }
+
+    public static Pixmap consumePixmap(Texture texture) {
+        if (!texture.getTextureData().isPrepared()) {
+            texture.getTextureData().prepare();
+        }
+        return texture.getTextureData().consumePixmap();
+    }
+
+    public void set(int x, int y) {
+        bits[y * wordsPerRow + (x >>> 5)] |= 1 << (x & 31);
+    }
+
+    public boolean get(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return false;
+        return (bits[y * wordsPerRow + (x >>> 5)] & (1 << (x & 31))) != 0;
+    }
+
+    /**
+     * Returns 32 pixels of row y starting at column x: bit j of the result is pixel (x + j, y).
+     * Columns outside the mask read as empty, so x may be negative.
+     */
+    public int row(int y, int x) {
+        if (y < 0 || y >= height || x <= -32 || x >= width) return 0;
+        int base = y * wordsPerRow;
+        if (x < 0) return bits[base] << -x;
+        int word = x >>> 5;
+        int shift = x & 31;
+        int result = bits[base + word] >>> shift;
+        if (shift != 0 && word + 1 < wordsPerRow) {
+            result |= bits[base + word + 1] << (32 - shift);
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        for (int i = 0; i < bits.length; i++) {
+            if (bits[i] != 0) return false;
+        }
+        return true;
+    }
+
+    // ------------------------------------------------------------------------
+    // Bitboard helpers -------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+     * ANDs this mask against other, placed at (offsetX, offsetY) relative to this mask's origin,
+     * and ORs the overlapping pixels into board (one int per row of this mask).
+     * Returns true if any pixel overlapped.
+     */
+    public boolean overlapInto(int[] board, CollisionMask other, int offsetX, int offsetY) {
+        int startY = Math.max(0, offsetY);
+        int endY = Math.min(Math.min(height, board.length), offsetY + other.height);
+        boolean hit = false;
+        for (int y = startY; y < endY; y++) {
+            int bits = row(y, 0) & other.row(y - offsetY, -offsetX);
+            if (bits != 0) {
+                board[y] |= bits;
+                hit = true;
+            }
+        }
+        return hit;
+    }
+
+    public boolean overlaps(CollisionMask other, int offsetX, int offsetY) {
+        int startY = Math.max(0, offsetY);
+        int endY = Math.min(height, offsetY + other.height);
+        for (int y = startY; y < endY; y++) {
+            if ((row(y, 0) & other.row(y - offsetY, -offsetX)) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the contact moment of a 32x32 board to out and returns the number of set pixels.
+     * Each set pixel (x, y) contributes (16 - x, 16 - y), pushed one further away from zero past the center
+     * column/row, so the sum points from the contact back toward the center of the board.
+     * Column sums come from popcounts against the bit planes of the column index.
+     */
+    public static int addContactMoment(int[] board, Vector2 out) {
+        int count = 0;
+        int momentX = 0;
+        int momentY = 0;
+        for (int y = 0; y < board.length; y++) {
+            int bits = board[y];
+            if (bits == 0) continue;
+            int n = Integer.bitCount(bits);
+            int columnSum = Integer.bitCount(bits & 0xAAAAAAAA)
+                          + (Integer.bitCount(bits & 0xCCCCCCCC) << 1)
+                          + (Integer.bitCount(bits & 0xF0F0F0F0) << 2)
+                          + (Integer.bitCount(bits & 0xFF00FF00) << 3)
+                          + (Integer.bitCount(bits & 0xFFFF0000) << 4);
+            momentX += 16 * n - columnSum - Integer.bitCount(bits & 0xFFFF0000);
+            momentY += n * (16 - y) - (y >= 16 ? n : 0);
+            count += n;
+        }
+        out.add(momentX, momentY);
+        return count;
+    }
+
+}
@@ -0,0 +1,140 @@
+package lando.systems.ld35.utils;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Per-level registry of collision masks, one per distinct texture region.
+ * Pixmaps are only read while the level loads; call finishLoading() once every region has been registered.
+ */
+public class CollisionMasks {
+
+    private final ObjectMap<TextureRegion, CollisionMask> masks;
+    private final ObjectMap<TransformKey, CollisionMask>  transformedMasks;
+    private final ObjectMap<Texture, Pixmap>              pixmaps;
+    private final TransformKey                            lookupKey;
+
+    private CollisionMask[] tileMasks;
+    private int             tilesWide;
+    private int             tilesHigh;
+
+    public CollisionMasks() {
+        masks = new ObjectMap<TextureRegion, CollisionMask>();
+        transformedMasks = new ObjectMap<TransformKey, CollisionMask>();
+        pixmaps = new ObjectMap<Texture, Pixmap>();
+        lookupKey = new TransformKey();
+        tileMasks = new CollisionMask[0];
+    }
+
+    public CollisionMask get(TextureRegion region) {
+        if (region == null) return null;
+        CollisionMask mask = masks.get(region);
+        if (mask == null) {
+            Texture texture = region.getTexture();
+            Pixmap pixmap = pixmaps.get(texture);
+            if (pixmap == null) {
+                pixmap = CollisionMask.consumePixmap(texture);
+                pixmaps.put(texture, pixmap);
+            }
+            mask = CollisionMask.fromPixmap(pixmap, region.getRegionX(), region.getRegionY(),
+                                            region.getRegionWidth(), region.getRegionHeight());
+            masks.put(region, mask);
+        }
+        return mask;
+    }
+
+    /**
+     * Registers a mask that was worked out ahead of time, so region's pixels never have to be read
+     */
+    public void put(TextureRegion region, CollisionMask mask) {
+        masks.put(region, mask);
+    }
+
+    /**
+     * Returns the mask of region as it is drawn at the given size, rotation and flip, shared by every object
+     * placed the same way. Unrotated, unflipped regions drawn at their own size get the plain region mask.
+     */
+    public CollisionMask get(TextureRegion region, float width, float height, float rotation, boolean flipX) {
+        if (region == null) return null;
+        CollisionMask source = get(region);
+        if (!flipX && rotation % 360f == 0 && width == source.width && height == source.height) {
+            return source;
+        }
+
+        lookupKey.set(region, width, height, rotation, flipX);
+        CollisionMask mask = transformedMasks.get(lookupKey);
+        if (mask == null) {
+            // Same placement as ObjectBase.render: flipped objects mirror about their center
+            float originX = flipX ? width / 2 : 0;
+            mask = CollisionMask.transformed(source, width, height, originX, 0, flipX ? -1 : 1, rotation);
+            TransformKey key = new TransformKey();
+            key.set(region, width, height, rotation, flipX);
+            transformedMasks.put(key, mask);
+        }
+        return mask;
+    }
+
+    public void addTileLayer(TiledMapTileLayer layer) {
+        tilesWide = layer.getWidth();
+        tilesHigh = layer.getHeight();
+        tileMasks = new CollisionMask[tilesWide * tilesHigh];
+        for (int y = 0; y < tilesHigh; y++) {
+            for (int x = 0; x < tilesWide; x++) {
+                TiledMapTileLayer.Cell cell = layer.getCell(x, y);
+                if (cell == null || cell.getTile() == null) continue;
+                tileMasks[x + y * tilesWide] = get(cell.getTile().getTextureRegion());
+            }
+        }
+    }
+
+    public CollisionMask getTileMask(int x, int y) {
+        if (x < 0 || y < 0 || x >= tilesWide || y >= tilesHigh) return null;
+        return tileMasks[x + y * tilesWide];
+    }
+
+    public void finishLoading() {
+        for (ObjectMap.Entry<Texture, Pixmap> entry : pixmaps.entries()) {
+            if (entry.key.getTextureData().disposePixmap()) {
+                entry.value.dispose();
+            }
+        }
+        pixmaps.clear();
+    }
+
+    private static class TransformKey {
+        TextureRegion region;
+        float         width;
+        float         height;
+        float         rotation;
+        boolean       flipX;
+
+        void set(TextureRegion region, float width, float height, float rotation, boolean flipX) {
+            this.region = region;
+            this.width = width;
+            this.height = height;
+            this.rotation = rotation;
+            this.flipX = flipX;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TransformKey)) return false;
+            TransformKey other = (TransformKey) o;
+            return region == other.region && width == other.width && height == other.height
+                && rotation == other.rotation && flipX == other.flipX;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = region.hashCode();
+            hash = 31 * hash + (int) width;
+            hash = 31 * hash + (int) height;
+            hash = 31 * hash + (int) (rotation * 100);
+            return 31 * hash + (flipX ? 1 : 0);
+        }
+    }
+
+}
@@ -0,0 +1,218 @@
+package lando.systems.ld35.utils;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Signed distance (in world pixels) to the nearest solid pixel, sampled on a grid of CELL_SIZE cells.
+ * Positive outside of walls, negative inside them, clamped to +/- MAX_DISTANCE.
+ *
+ * Solids are stamped in from collision masks, then rebuilt with a two pass chamfer transform,
+ * either over the whole level or over just the window around something that was removed.
+ */
+public class DistanceField {
+
+    public static final int   CELL_SIZE    = 4;
+    public static final float MAX_DISTANCE = 64f;
+
+    private static final int   RANGE    = (int) (MAX_DISTANCE / CELL_SIZE);
+    private static final float DIAGONAL = 1.4142135f;
+    private static final float FAR      = Float.MAX_VALUE / 4f;
+
+    public final int width;
+    public final int height;
+
+    private final float[]   distances;
+    private final boolean[] solid;
+
+    public DistanceField(int pixelsWide, int pixelsHigh) {
+        this.width = (pixelsWide + CELL_SIZE - 1) / CELL_SIZE;
+        this.height = (pixelsHigh + CELL_SIZE - 1) / CELL_SIZE;
+        this.distances = new float[width * height];
+        this.solid = new boolean[width * height];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = MAX_DISTANCE;
+        }
+    }
+
+    /**
+     * A copy of a field as it stands, such as one kept to skip rebuilding a level's from scratch
+     */
+    public DistanceField(DistanceField other) {
+        this.width = other.width;
+        this.height = other.height;
+        this.distances = new float[other.distances.length];
+        this.solid = new boolean[other.solid.length];
+        set(other);
+    }
+
+    /**
+     * Overwrites every distance and solid cell with another field's, which must be the same size
+     */
+    public void set(DistanceField other) {
+        System.arraycopy(other.distances, 0, distances, 0, distances.length);
+        System.arraycopy(other.solid, 0, solid, 0, solid.length);
+    }
+
+    /**
+     * Roughly how much memory the field takes up
+     */
+    public int sizeInBytes() {
+        return distances.length * 4 + solid.length;
+    }
+
+    // ------------------------------------------------------------------------
+    // Building ---------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+     * Marks every cell that holds at least one set pixel of mask, drawn with its bottom left at (worldX, worldY).
+     * Only cells inside the clip window (inclusive cell coordinates) are touched.
+     */
+    public void stamp(CollisionMask mask, int worldX, int worldY, int clipX1, int clipY1, int clipX2, int clipY2) {
+        if (mask == null) return;
+        for (int y = 0; y < mask.height; y++) {
+            int cellY = MathUtils.floor((worldY + y) / (float) CELL_SIZE);
+            if (cellY < clipY1 || cellY > clipY2) continue;
+            for (int x = 0; x < mask.width; x++) {
+                if (!mask.get(x, y)) continue;
+                int cellX = MathUtils.floor((worldX + x) / (float) CELL_SIZE);
+                if (cellX < clipX1 || cellX > clipX2) continue;
+                solid[cellX + cellY * width] = true;
+            }
+        }
+    }
+
+    public void stamp(CollisionMask mask, int worldX, int worldY) {
+        stamp(mask, worldX, worldY, 0, 0, width - 1, height - 1);
+    }
+
+    public void clearSolid(int cellX1, int cellY1, int cellX2, int cellY2) {
+        cellX1 = Math.max(cellX1, 0);
+        cellY1 = Math.max(cellY1, 0);
+        cellX2 = Math.min(cellX2, width - 1);
+        cellY2 = Math.min(cellY2, height - 1);
+        for (int y = cellY1; y <= cellY2; y++) {
+            for (int x = cellX1; x <= cellX2; x++) {
+                solid[x + y * width] = false;
+            }
+        }
+    }
+
+    public void rebuild() {
+        transform(0, 0, width - 1, height - 1, 0, 0, width - 1, height - 1);
+    }
+
+    /**
+     * Recomputes distances after the solids inside the given cell window changed.
+     * Distances are clamped, so only cells within RANGE of the window can change, and only solids within
+     * RANGE of those cells can matter; the transform runs over that margin and writes back the inner one.
+     */
+    public void rebuild(int cellX1, int cellY1, int cellX2, int cellY2) {
+        transform(cellX1 - 2 * RANGE, cellY1 - 2 * RANGE, cellX2 + 2 * RANGE, cellY2 + 2 * RANGE,
+                  cellX1 - RANGE, cellY1 - RANGE, cellX2 + RANGE, cellY2 + RANGE);
+    }
+
+    private void transform(int x1, int y1, int x2, int y2, int writeX1, int writeY1, int writeX2, int writeY2) {
+        x1 = Math.max(x1, 0);
+        y1 = Math.max(y1, 0);
+        x2 = Math.min(x2, width - 1);
+        y2 = Math.min(y2, height - 1);
+        if (x1 > x2 || y1 > y2) return;
+        int w = x2 - x1 + 1;
+        int h = y2 - y1 + 1;
+
+        // Distance from each empty cell to the nearest solid one, and from each solid cell to the nearest empty one
+        float[] outside = new float[w * h];
+        float[] inside = new float[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                boolean isSolid = solid[(x1 + x) + (y1 + y) * width];
+                outside[x + y * w] = isSolid ? 0 : FAR;
+                inside[x + y * w] = isSolid ? FAR : 0;
+            }
+        }
+        chamfer(outside, w, h);
+        chamfer(inside, w, h);
+
+        writeX1 = Math.max(writeX1, x1);
+        writeY1 = Math.max(writeY1, y1);
+        writeX2 = Math.min(writeX2, x2);
+        writeY2 = Math.min(writeY2, y2);
+        for (int y = writeY1; y <= writeY2; y++) {
+            for (int x = writeX1; x <= writeX2; x++) {
+                int local = (x - x1) + (y - y1) * w;
+                // The wall surface sits half a cell past the last solid cell center
+                float d = solid[x + y * width]
+                        ? -(inside[local] - 0.5f) * CELL_SIZE
+                        :  (outside[local] - 0.5f) * CELL_SIZE;
+                distances[x + y * width] = MathUtils.clamp(d, -MAX_DISTANCE, MAX_DISTANCE);
+            }
+        }
+    }
+
+    private static void chamfer(float[] d, int w, int h) {
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int i = x + y * w;
+                float best = d[i];
+                if (x > 0)                 best = Math.min(best, d[i - 1] + 1f);
+                if (y > 0)                 best = Math.min(best, d[i - w] + 1f);
+                if (x > 0 && y > 0)        best = Math.min(best, d[i - w - 1] + DIAGONAL);
+                if (x < w - 1 && y > 0)    best = Math.min(best, d[i - w + 1] + DIAGONAL);
+                d[i] = best;
+            }
+        }
+        for (int y = h - 1; y >= 0; y--) {
+            for (int x = w - 1; x >= 0; x--) {
+                int i = x + y * w;
+                float best = d[i];
+                if (x < w - 1)             best = Math.min(best, d[i + 1] + 1f);
+                if (y < h - 1)             best = Math.min(best, d[i + w] + 1f);
+                if (x < w - 1 && y < h - 1) best = Math.min(best, d[i + w + 1] + DIAGONAL);
+                if (x > 0 && y < h - 1)    best = Math.min(best, d[i + w - 1] + DIAGONAL);
+                d[i] = best;
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Queries ----------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+     * Bilinear sample of the signed distance at a world position. Outside the level reads as the nearest edge cell.
+     */
+    public float distance(float worldX, float worldY) {
+        float fx = worldX / CELL_SIZE - 0.5f;
+        float fy = worldY / CELL_SIZE - 0.5f;
+        int cx = MathUtils.floor(fx);
+        int cy = MathUtils.floor(fy);
+        float tx = fx - cx;
+        float ty = fy - cy;
+        float bottom = MathUtils.lerp(cell(cx, cy), cell(cx + 1, cy), tx);
+        float top = MathUtils.lerp(cell(cx, cy + 1), cell(cx + 1, cy + 1), tx);
+        return MathUtils.lerp(bottom, top, ty);
+    }
+
+    /**
+     * Writes the unit direction away from the nearest wall at a world position into out.
+     * Returns false if there is no wall in range, in which case out is left untouched.
+     */
+    public boolean gradient(float worldX, float worldY, Vector2 out) {
+        float gx = distance(worldX + CELL_SIZE, worldY) - distance(worldX - CELL_SIZE, worldY);
+        float gy = distance(worldX, worldY + CELL_SIZE) - distance(worldX, worldY - CELL_SIZE);
+        float len2 = gx * gx + gy * gy;
+        if (len2 < 0.0001f) return false;
+        float invLen = 1f / (float) Math.sqrt(len2);
+        out.set(gx * invLen, gy * invLen);
+        return true;
+    }
+
+    private float cell(int x, int y) {
+        x = MathUtils.clamp(x, 0, width - 1);
+        y = MathUtils.clamp(y, 0, height - 1);
+        return distances[x + y * width];
+    }
+
+}
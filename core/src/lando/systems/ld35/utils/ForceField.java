@@ -0,0 +1,155 @@
+package lando.systems.ld35.utils;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Every force a level exerts, sampled on a grid of CELL_SIZE cells and read back with bilinear filtering.
+ *
+ * Wind is the sum of each fan's force over the tiles it blows through. Fans add it in and take it back out
+ * before they are re-marched, so a door swinging only touches the cells of the fans it could have blocked.
+ * Magnet pull never changes once the level is loaded, so it is summed over every magnet once, up front.
+ */
+public class ForceField {
+
+    public static final int TILE_SIZE = 32;
+    public static final int CELL_SIZE = 8;
+
+    private static final int CELLS_PER_TILE = TILE_SIZE / CELL_SIZE;
+
+    public final int tilesWide;
+    public final int tilesHigh;
+    public final int width;
+    public final int height;
+    // Bumped whenever the wind changes, so anything derived from it can tell it is stale
+    public int windVersion;
+
+    private final float[] windX;
+    private final float[] windY;
+    private final float[] magnetX;
+    private final float[] magnetY;
+
+    public ForceField(int tilesWide, int tilesHigh) {
+        this.tilesWide = tilesWide;
+        this.tilesHigh = tilesHigh;
+        this.width = tilesWide * CELLS_PER_TILE;
+        this.height = tilesHigh * CELLS_PER_TILE;
+        this.windX = new float[width * height];
+        this.windY = new float[width * height];
+        this.magnetX = new float[width * height];
+        this.magnetY = new float[width * height];
+    }
+
+    /**
+     * A copy of a field as it stands, such as the one a level puts back when it is reset
+     */
+    public ForceField(ForceField other) {
+        this(other.tilesWide, other.tilesHigh);
+        set(other);
+    }
+
+    /**
+     * Overwrites every force with another field's, which must be the same size
+     */
+    public void set(ForceField other) {
+        System.arraycopy(other.windX, 0, windX, 0, windX.length);
+        System.arraycopy(other.windY, 0, windY, 0, windY.length);
+        System.arraycopy(other.magnetX, 0, magnetX, 0, magnetX.length);
+        System.arraycopy(other.magnetY, 0, magnetY, 0, magnetY.length);
+        windVersion++;
+    }
+
+    // ------------------------------------------------------------------------
+    // Building ---------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+     * Adds a wind force to every cell in the inclusive tile rectangle, pass the negated force to take it back out
+     */
+    public void addWind(int tileX1, int tileY1, int tileX2, int tileY2, float forceX, float forceY) {
+        int x1 = Math.max(tileX1 * CELLS_PER_TILE, 0);
+        int y1 = Math.max(tileY1 * CELLS_PER_TILE, 0);
+        int x2 = Math.min((tileX2 + 1) * CELLS_PER_TILE - 1, width - 1);
+        int y2 = Math.min((tileY2 + 1) * CELLS_PER_TILE - 1, height - 1);
+        windVersion++;
+        for (int y = y1; y <= y2; y++) {
+            for (int x = x1; x <= x2; x++) {
+                int index = x + y * width;
+                windX[index] += forceX;
+                windY[index] += forceY;
+            }
+        }
+    }
+
+    /**
+     * Adds the pull toward (centerX, centerY) that falls off with the square of the distance to it.
+     * Cells closer than one cell to the center get the pull from one cell out, rather than blowing up.
+     */
+    public void addMagnet(float centerX, float centerY, float strength) {
+        float minDistance2 = CELL_SIZE * CELL_SIZE;
+        for (int y = 0; y < height; y++) {
+            float dy = centerY - (y + 0.5f) * CELL_SIZE;
+            for (int x = 0; x < width; x++) {
+                float dx = centerX - (x + 0.5f) * CELL_SIZE;
+                float distance2 = dx * dx + dy * dy;
+                if (distance2 == 0) continue;
+                float pull = strength / Math.max(distance2, minDistance2) / (float) Math.sqrt(distance2);
+                int index = x + y * width;
+                magnetX[index] += dx * pull;
+                magnetY[index] += dy * pull;
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Queries ----------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+     * Writes the wind at a world position into out and returns it. Fans only blow inside the level, so outside it is zero.
+     */
+    public Vector2 wind(float worldX, float worldY, Vector2 out) {
+        if (!contains(worldX, worldY)) return out.set(0, 0);
+        return out.set(sample(windX, worldX, worldY), sample(windY, worldX, worldY));
+    }
+
+    /**
+     * The components of wind() on their own, for callers that have no Vector2 of their own to write into,
+     * such as update chunks running on several threads
+     */
+    public float windX(float worldX, float worldY) {
+        return contains(worldX, worldY) ? sample(windX, worldX, worldY) : 0;
+    }
+
+    public float windY(float worldX, float worldY) {
+        return contains(worldX, worldY) ? sample(windY, worldX, worldY) : 0;
+    }
+
+    /**
+     * Writes the pull of every magnet at a world position into out and returns it.
+     * Magnets reach past the edge of the level, so outside it reads as the nearest edge cell, still pulling back in.
+     */
+    public Vector2 magnet(float worldX, float worldY, Vector2 out) {
+        return out.set(sample(magnetX, worldX, worldY), sample(magnetY, worldX, worldY));
+    }
+
+    private boolean contains(float worldX, float worldY) {
+        return worldX >= 0 && worldY >= 0 && worldX < width * CELL_SIZE && worldY < height * CELL_SIZE;
+    }
+
+    private float sample(float[] values, float worldX, float worldY) {
+        float fx = worldX / CELL_SIZE - 0.5f;
+        float fy = worldY / CELL_SIZE - 0.5f;
+        int cx = MathUtils.floor(fx);
+        int cy = MathUtils.floor(fy);
+        float tx = fx - cx;
+        float ty = fy - cy;
+        int x1 = MathUtils.clamp(cx, 0, width - 1);
+        int x2 = MathUtils.clamp(cx + 1, 0, width - 1);
+        int y1 = MathUtils.clamp(cy, 0, height - 1) * width;
+        int y2 = MathUtils.clamp(cy + 1, 0, height - 1) * width;
+        return MathUtils.lerp(MathUtils.lerp(values[x1 + y1], values[x2 + y1], tx),
+                              MathUtils.lerp(values[x1 + y2], values[x2 + y2], tx), ty);
+    }
+
+}
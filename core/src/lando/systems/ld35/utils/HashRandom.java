@@ -0,0 +1,43 @@
+package lando.systems.ld35.utils;
+
+/**
+ * Stateless random numbers, hashed from a seed and two keys such as a tick and an index.
+ * Unlike MathUtils.random the result does not depend on how many numbers were drawn before it,
+ * so work split across threads gets the same values it would get running serially.
+ *
+ * Multipliers are kept under 2^21 so the products stay exact in the HTML build, where ints are doubles.
+ */
+public class HashRandom {
+
+    private static final float INV_2_24 = 1f / (1 << 24);
+
+    public static int hash(int seed, int a, int b) {
+        return mix(mix(mix(seed) ^ a) ^ b);
+    }
+
+    /**
+     * Returns a value in [0, 1)
+     */
+    public static float unit(int seed, int a, int b) {
+        return (hash(seed, a, b) >>> 8) * INV_2_24;
+    }
+
+    /**
+     * Returns a value in [-range, range)
+     */
+    public static float range(int seed, int a, int b, float range) {
+        return (unit(seed, a, b) * 2f - 1f) * range;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x1B873;
+        h ^= h >>> 15;
+        h *= 0x1CE4D;
+        h ^= h >>> 16;
+        h *= 0x12A97;
+        h ^= h >>> 13;
+        return h;
+    }
+
+}
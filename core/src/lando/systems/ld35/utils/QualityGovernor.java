@@ -0,0 +1,136 @@
+package lando.systems.ld35.utils;
+
+import com.badlogic.gdx.math.MathUtils;
+
+/**
+ * Trades effect budgets for frame rate.
+ *
+ * Frame times are averaged over the last SAMPLES frames, and every ADJUST_INTERVAL seconds the quality level
+ * is stepped down if the average misses the target frame time, or back up if it has been holding it.
+ * After each step the average starts over, so the next decision only sees frames run at the new level.
+ * Budgets (dust, trails, explosion particles, ambient spawns) are their full size times the quality level,
+ * which stays within the operator's bounds. Once quality bottoms out the tick rate can give too, down to
+ * minTickRate, and it is the first thing restored when there is room again.
+ */
+public class QualityGovernor {
+
+    public static final float DEFAULT_MIN_QUALITY = 0.25f;
+    public static final float DEFAULT_MAX_QUALITY = 1f;
+
+    private static final int   SAMPLES          = 60;
+    private static final float ADJUST_INTERVAL  = 0.5f;
+    // Going back up waits longer than coming down, so it doesn't bounce off the target
+    private static final float RAISE_COOLDOWN   = 4f;
+    private static final float QUALITY_STEP     = 0.1f;
+    private static final int   TICK_RATE_STEP   = 10;
+    private static final float SLOW_MARGIN      = 1.15f;
+    private static final float FAST_MARGIN      = 1.02f;
+
+    public final float minQuality;
+    public final float maxQuality;
+    public final int   maxTickRate;
+    public final int   minTickRate;
+    private final float targetFrameTime;
+
+    private final float[] frameTimes;
+    private int   frameIndex;
+    private int   frameCount;
+    private float frameTimeSum;
+    private float adjustTimer;
+    private float raiseCooldown;
+
+    private float quality;
+    private int   tickRate;
+
+    public QualityGovernor(int targetFrameRate, float minQuality, float maxQuality, int tickRate, int minTickRate) {
+        this.targetFrameTime = 1f / Math.max(targetFrameRate, 1);
+        this.minQuality = Math.min(minQuality, maxQuality);
+        this.maxQuality = maxQuality;
+        this.maxTickRate = tickRate;
+        this.minTickRate = MathUtils.clamp(minTickRate, 1, tickRate);
+        this.frameTimes = new float[SAMPLES];
+        this.quality = maxQuality;
+        this.tickRate = tickRate;
+    }
+
+    /**
+     * Call once per rendered frame with how long it really took, before it is clamped for the simulation
+     */
+    public void update(float frameTime) {
+        frameTimeSum += frameTime - frameTimes[frameIndex];
+        frameTimes[frameIndex] = frameTime;
+        frameIndex = (frameIndex + 1) % SAMPLES;
+        frameCount = Math.min(frameCount + 1, SAMPLES);
+
+        raiseCooldown -= frameTime;
+        adjustTimer += frameTime;
+        if (adjustTimer < ADJUST_INTERVAL || frameCount < SAMPLES) return;
+        adjustTimer = 0;
+
+        float average = frameTimeSum / frameCount;
+        if (average > targetFrameTime * SLOW_MARGIN) {
+            if (lower()) clearSamples();
+            raiseCooldown = RAISE_COOLDOWN;
+        } else if (average <= targetFrameTime * FAST_MARGIN && raiseCooldown <= 0) {
+            if (raise()) clearSamples();
+        }
+    }
+
+    /**
+     * Frames from before a change say nothing about how it is doing now
+     */
+    private void clearSamples() {
+        for (int i = 0; i < SAMPLES; i++) {
+            frameTimes[i] = 0;
+        }
+        frameIndex = 0;
+        frameCount = 0;
+        frameTimeSum = 0;
+    }
+
+    private boolean lower() {
+        if (quality > minQuality) {
+            quality = Math.max(minQuality, quality - QUALITY_STEP);
+        } else if (tickRate > minTickRate) {
+            tickRate = Math.max(minTickRate, tickRate - TICK_RATE_STEP);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private boolean raise() {
+        if (tickRate < maxTickRate) {
+            tickRate = Math.min(maxTickRate, tickRate + TICK_RATE_STEP);
+        } else if (quality < maxQuality) {
+            quality = Math.min(maxQuality, quality + QUALITY_STEP);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    /**
+     * A budget whose full size is fullBudget, at the current quality
+     */
+    public float scale(float fullBudget) {
+        return fullBudget * quality;
+    }
+
+    /**
+     * A count whose full size is fullBudget, at the current quality, never less than one unless fullBudget is zero
+     */
+    public int scale(int fullBudget) {
+        if (fullBudget <= 0) return 0;
+        return Math.max(1, MathUtils.round(fullBudget * quality));
+    }
+
+}
@@ -0,0 +1,24 @@
+package lando.systems.ld35.utils;
+
+/**
+ * Runs every chunk in order on the calling thread. Used wherever threads are not available, such as the HTML build.
+ */
+public class SerialTaskRunner implements TaskRunner {
+
+    public static final SerialTaskRunner INSTANCE = new SerialTaskRunner();
+
+    @Override
+    public void run(int count, int chunkSize, ChunkTask task) {
+        if (count > 0) task.run(0, count);
+    }
+
+    @Override
+    public int threads() {
+        return 1;
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+}
@@ -0,0 +1,171 @@
+package lando.systems.ld35.utils;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Packed occupancy of a level, answering "is this solid?" without touching the tiled map.
+ *
+ * Static geometry is stored twice: one bit per foreground tile, and a 4x4 grid of SUB_CELL sized cells per tile
+ * that are set when any pixel of the tile's collision mask falls inside them.
+ * Doors live in a separate per-tile overlay that is cleared and re-rasterized whenever one of them moves.
+ */
+public class SolidGrid {
+
+    public static final int TILE_SIZE = 32;
+    public static final int SUB_CELL  = 8;
+
+    private static final int SUB_PER_TILE = TILE_SIZE / SUB_CELL;
+
+    public final int tilesWide;
+    public final int tilesHigh;
+
+    private final int[] tileBits;
+    private final int[] doorBits;
+    private final int[] subCells;
+
+    public SolidGrid(int tilesWide, int tilesHigh) {
+        this.tilesWide = tilesWide;
+        this.tilesHigh = tilesHigh;
+        this.tileBits = new int[(tilesWide * tilesHigh + 31) >>> 5];
+        this.doorBits = new int[tileBits.length];
+        this.subCells = new int[tilesWide * tilesHigh];
+    }
+
+    /**
+     * Wraps occupancy that was worked out ahead of time, see LevelData
+     */
+    public SolidGrid(int tilesWide, int tilesHigh, int[] tileBits, int[] subCells) {
+        this.tilesWide = tilesWide;
+        this.tilesHigh = tilesHigh;
+        this.tileBits = tileBits;
+        this.doorBits = new int[tileBits.length];
+        this.subCells = subCells;
+    }
+
+    public static SolidGrid fromTiles(CollisionMasks masks, int tilesWide, int tilesHigh) {
+        SolidGrid grid = new SolidGrid(tilesWide, tilesHigh);
+        for (int y = 0; y < tilesHigh; y++) {
+            for (int x = 0; x < tilesWide; x++) {
+                grid.setTile(x, y, masks.getTileMask(x, y));
+            }
+        }
+        return grid;
+    }
+
+    public void setTile(int tileX, int tileY, CollisionMask mask) {
+        if (mask == null) return;
+        int index = tileX + tileY * tilesWide;
+        tileBits[index >>> 5] |= 1 << (index & 31);
+        subCells[index] = subCellsOf(mask);
+    }
+
+    public int[] getTileBits() { return tileBits; }
+    public int[] getSubCells() { return subCells; }
+
+    private static int subCellsOf(CollisionMask mask) {
+        int cells = 0;
+        int height = Math.min(mask.height, TILE_SIZE);
+        for (int y = 0; y < height; y++) {
+            int row = mask.row(y, 0);
+            if (row == 0) continue;
+            int sy = y / SUB_CELL;
+            for (int sx = 0; sx < SUB_PER_TILE; sx++) {
+                if (((row >>> (sx * SUB_CELL)) & 0xFF) != 0) {
+                    cells |= 1 << (sx + sy * SUB_PER_TILE);
+                }
+            }
+        }
+        return cells;
+    }
+
+    // ------------------------------------------------------------------------
+    // Queries ----------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    public boolean inBounds(int tileX, int tileY) {
+        return tileX >= 0 && tileY >= 0 && tileX < tilesWide && tileY < tilesHigh;
+    }
+
+    /**
+     * True if the foreground layer has a tile at this cell
+     */
+    public boolean isTile(int tileX, int tileY) {
+        if (!inBounds(tileX, tileY)) return false;
+        int index = tileX + tileY * tilesWide;
+        return (tileBits[index >>> 5] & (1 << (index & 31))) != 0;
+    }
+
+    /**
+     * True if some door's bounds touch this cell; a hint that the door rectangles need an exact test
+     */
+    public boolean isDoor(int tileX, int tileY) {
+        if (!inBounds(tileX, tileY)) return false;
+        int index = tileX + tileY * tilesWide;
+        return (doorBits[index >>> 5] & (1 << (index & 31))) != 0;
+    }
+
+    /**
+     * True if the pixels of a tile fall in the sub cell holding this world position
+     */
+    public boolean isSolidAt(float worldX, float worldY) {
+        int px = MathUtils.floor(worldX);
+        int py = MathUtils.floor(worldY);
+        int tileX = px >> 5;
+        int tileY = py >> 5;
+        if (!inBounds(tileX, tileY)) return false;
+        int sx = (px & (TILE_SIZE - 1)) / SUB_CELL;
+        int sy = (py & (TILE_SIZE - 1)) / SUB_CELL;
+        return (subCells[tileX + tileY * tilesWide] & (1 << (sx + sy * SUB_PER_TILE))) != 0;
+    }
+
+    /**
+     * True if any tile sub cell overlaps the given world rectangle
+     */
+    public boolean anySolid(float x, float y, float width, float height) {
+        int x1 = MathUtils.floor(x) / SUB_CELL;
+        int y1 = MathUtils.floor(y) / SUB_CELL;
+        int x2 = (MathUtils.ceil(x + width) - 1) / SUB_CELL;
+        int y2 = (MathUtils.ceil(y + height) - 1) / SUB_CELL;
+        x1 = Math.max(x1, 0);
+        y1 = Math.max(y1, 0);
+        x2 = Math.min(x2, tilesWide * SUB_PER_TILE - 1);
+        y2 = Math.min(y2, tilesHigh * SUB_PER_TILE - 1);
+        for (int sy = y1; sy <= y2; sy++) {
+            int tileRow = (sy / SUB_PER_TILE) * tilesWide;
+            int bitRow = (sy % SUB_PER_TILE) * SUB_PER_TILE;
+            for (int sx = x1; sx <= x2; sx++) {
+                int cells = subCells[tileRow + sx / SUB_PER_TILE];
+                if (cells != 0 && (cells & (1 << (bitRow + sx % SUB_PER_TILE))) != 0) return true;
+            }
+        }
+        return false;
+    }
+
+    // ------------------------------------------------------------------------
+    // Door overlay -----------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    public void clearDoors() {
+        for (int i = 0; i < doorBits.length; i++) {
+            doorBits[i] = 0;
+        }
+    }
+
+    /**
+     * Marks every tile whose closed bounds touch the door's, which is never fewer than an overlap test would hit
+     */
+    public void addDoor(Rectangle doorBounds) {
+        int x1 = Math.max(0, MathUtils.floor(doorBounds.x / TILE_SIZE));
+        int y1 = Math.max(0, MathUtils.floor(doorBounds.y / TILE_SIZE));
+        int x2 = Math.min(tilesWide - 1, MathUtils.floor((doorBounds.x + doorBounds.width) / TILE_SIZE));
+        int y2 = Math.min(tilesHigh - 1, MathUtils.floor((doorBounds.y + doorBounds.height) / TILE_SIZE));
+        for (int y = y1; y <= y2; y++) {
+            for (int x = x1; x <= x2; x++) {
+                int index = x + y * tilesWide;
+                doorBits[index >>> 5] |= 1 << (index & 31);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package lando.systems.ld35.utils;
+
+/**
+ * Runs a loop body over [0, count) in fixed size chunks, possibly on several threads at once.
+ * Chunks must only touch their own elements, since nothing about the order they run in is guaranteed;
+ * run() returns once every chunk has finished.
+ */
+public interface TaskRunner {
+
+    interface ChunkTask {
+        void run(int start, int end);
+    }
+
+    void run(int count, int chunkSize, ChunkTask task);
+
+    /**
+     * How many chunks can be in flight at once; 1 means everything runs on the calling thread
+     */
+    int threads();
+
+    /**
+     * Stops any worker threads, after which the runner must not be used again
+     */
+    void dispose();
+
+}
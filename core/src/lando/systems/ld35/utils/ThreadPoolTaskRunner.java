@@ -0,0 +1,84 @@
+package lando.systems.ld35.utils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Spreads chunks over a fixed pool of daemon worker threads, with the calling thread taking the first chunk itself.
+ * Core targets Java 6, so this is a plain executor rather than a fork-join pool; the chunks are
+ * equal in size and independent, so there is nothing for work stealing to balance anyway.
+ * GWT has no threads, so LudumDare35.gwt.xml leaves this class out of the HTML build.
+ */
+public class ThreadPoolTaskRunner implements TaskRunner {
+
+    private final int             threads;
+    private final ExecutorService workers;
+    private volatile Throwable    failure;
+
+    public ThreadPoolTaskRunner(int threads) {
+        this.threads = Math.max(1, threads);
+        this.workers = Executors.newFixedThreadPool(Math.max(1, this.threads - 1), new ThreadFactory() {
+            private int count;
+
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "update-worker-" + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @Override
+    public void run(int count, int chunkSize, final ChunkTask task) {
+        if (count <= 0) return;
+        int chunks = (count + chunkSize - 1) / chunkSize;
+        if (chunks == 1 || threads == 1) {
+            task.run(0, count);
+            return;
+        }
+
+        final CountDownLatch done = new CountDownLatch(chunks - 1);
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            final int start = chunk * chunkSize;
+            final int end = Math.min(count, start + chunkSize);
+            workers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run(start, end);
+                    } catch (Throwable t) {
+                        failure = t;
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        task.run(0, chunkSize);
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            Throwable t = failure;
+            failure = null;
+            throw new RuntimeException("Update chunk failed", t);
+        }
+    }
+
+    @Override
+    public int threads() {
+        return threads;
+    }
+
+    @Override
+    public void dispose() {
+        workers.shutdown();
+    }
+
+}
@@ -0,0 +1,52 @@
+package lando.systems.ld35.utils;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * The world rectangle a camera can see this frame, and a tally of what was drawn or skipped against it.
+ * Call begin() once per frame after the camera is positioned, then ask isVisible() before drawing anything.
+ */
+public class ViewCuller {
+
+    public final Rectangle view;
+    public int drawn;
+    public int culled;
+
+    public ViewCuller() {
+        view = new Rectangle();
+    }
+
+    public void begin(OrthographicCamera camera) {
+        float width = camera.viewportWidth * camera.zoom;
+        float height = camera.viewportHeight * camera.zoom;
+        view.set(camera.position.x - width / 2, camera.position.y - height / 2, width, height);
+        drawn = 0;
+        culled = 0;
+    }
+
+    /**
+     * True if the rectangle touches the view. Negative sizes, as used to draw flipped, are allowed.
+     */
+    public boolean isVisible(float x, float y, float width, float height) {
+        if (width < 0) {
+            x += width;
+            width = -width;
+        }
+        if (height < 0) {
+            y += height;
+            height = -height;
+        }
+        if (x > view.x + view.width || x + width < view.x || y > view.y + view.height || y + height < view.y) {
+            culled++;
+            return false;
+        }
+        drawn++;
+        return true;
+    }
+
+    public boolean isVisible(Rectangle rect) {
+        return isVisible(rect.x, rect.y, rect.width, rect.height);
+    }
+
+}
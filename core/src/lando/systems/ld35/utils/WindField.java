@@ -2,6 +2,7 @@ package lando.systems.ld35.utils;
 
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
 
 /**
  * Created by Doug on 4/16/2016.
@@ -16,4 +17,55 @@ public class WindField {
         bounds = b;
         direction = d;
     }
+
+    /**
+     * Marches from the tiles at bounds along direction until a tile or door is in the way,
+     * and writes the tiles passed over into out. step is scratch space for the door test.
+     */
+    public static WindField march(SolidGrid solidGrid, Array<Rectangle> doorBounds, Vector2 direction,
+                                  Rectangle bounds, Rectangle step, WindField out){
+        int x1, y1, x2, y2;
+        if (direction.y == 0) { // horizontal
+            x1 = x2 = (int)bounds.x / 32;
+            y1 = (int)bounds.y / 32;
+            y2 = y1+1;
+        } else {
+            y1 = y2 = (int)bounds.y/32;
+            x1 = (int)bounds.x/32;
+            x2 = x1+1;
+        }
+        int tempX1 = x1 + (int)direction.x;
+        int tempX2 = x2 + (int)direction.x;
+        int tempY1 = y1 + (int)direction.y;
+        int tempY2 = y2 + (int)direction.y;
+        while(solidGrid.inBounds(tempX1, tempY1) && solidGrid.inBounds(tempX2, tempY2)){
+            if (solidGrid.isTile(tempX1, tempY1) || solidGrid.isTile(tempX2, tempY2)){
+                break;
+            }
+            // The door overlay is conservative, so only test the door rectangles where it says one is close
+            if (solidGrid.isDoor(tempX1, tempY1) || solidGrid.isDoor(tempX2, tempY2)){
+                step.set(tempX1 * 32 , tempY1 *32, (tempX2 - tempX1 + 1) * 32, (tempY2 - tempY1 + 1) * 32);
+                if (overlapsAny(step, doorBounds)) break;
+            }
+            tempX1 += direction.x;
+            tempX2 += direction.x;
+            tempY1 += direction.y;
+            tempY2 += direction.y;
+        }
+        tempX1 -= direction.x;
+        tempX2 -= direction.x;
+        tempY1 -= direction.y;
+        tempY2 -= direction.y;
+        bounds.getCenter(out.origin);
+        out.bounds.set(Math.min(x1, tempX1) * 32, Math.min(y1, tempY1) * 32, (Math.abs(tempX2 - x1) + 1)*32, (Math.abs(tempY2 - y1) + 1)*32);
+        out.direction = direction;
+        return out;
+    }
+
+    private static boolean overlapsAny(Rectangle rect, Array<Rectangle> others) {
+        for (int i = 0; i < others.size; i++) {
+            if (rect.overlaps(others.get(i))) return true;
+        }
+        return false;
+    }
 }
@@ -0,0 +1,104 @@
+package lando.systems.ld35;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Pools;
+import lando.systems.ld35.ParticleSystem.DustEmitter;
+import lando.systems.ld35.ParticleSystem.ParticleManager;
+import lando.systems.ld35.gameobjects.LevelCache;
+import lando.systems.ld35.gameobjects.LevelLoader;
+import lando.systems.ld35.screens.AttractScreen;
+import lando.systems.ld35.screens.GameScreen;
+import lando.systems.ld35.screens.MenuScreen;
+import lando.systems.ld35.utils.Assets;
+import lando.systems.ld35.utils.QualityGovernor;
+import lando.systems.ld35.utils.SerialTaskRunner;
+import lando.systems.ld35.utils.TaskRunner;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+/**
+ * Brings up just enough of the game for tests: the headless backend, a GL that accepts every call and draws nothing,
+ * the real Assets, and a LudumDare35 with its level loader. Images are decoded for real, so the masks are the game's.
+ * Tests run from android/assets, see core/build.gradle.
+ */
+public class HeadlessGame {
+
+    private static boolean started;
+
+    public static synchronized void start() {
+        if (started) return;
+        started = true;
+
+        new HeadlessApplication(new ApplicationAdapter() {});
+        Gdx.gl = Gdx.gl20 = (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(),
+                                                          new Class<?>[] { GL20.class },
+                                                          new NullGL());
+        Assets.load();
+        while (Assets.update() != 1f) {
+            Thread.yield();
+        }
+        LudumDare35.game = new LudumDare35(new TestActionResolver());
+        LudumDare35.game.levels = new LevelLoader(Pools.get(Rectangle.class), LevelCache.DEFAULT_SIZE_KB);
+    }
+
+    /**
+     * Hands out non-zero handles, reports every shader as compiled and linked with nothing active in it,
+     * and returns zero, false, an empty string or null for everything else
+     */
+    private static class NullGL implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (name.equals("equals")) return proxy == args[0];
+            if (name.equals("hashCode")) return System.identityHashCode(proxy);
+            if (name.equals("toString")) return "NullGL";
+            if (name.equals("glGetShaderiv") || name.equals("glGetProgramiv")) {
+                int pname = (Integer) args[1];
+                boolean ok = pname == GL20.GL_COMPILE_STATUS || pname == GL20.GL_LINK_STATUS;
+                ((IntBuffer) args[2]).put(0, ok ? 1 : 0);
+                return null;
+            }
+            Class<?> type = method.getReturnType();
+            if (type == int.class) return 1;
+            if (type == boolean.class) return false;
+            if (type == float.class) return 0f;
+            if (type == String.class) return "";
+            return null;
+        }
+    }
+
+    public static class TestActionResolver implements ActionResolver {
+        @Override public boolean isFullScreen() { return false; }
+        @Override public boolean showMouseCursor() { return true; }
+        @Override public boolean isFreePlay() { return true; }
+        @Override public int livesPerCredit() { return 5; }
+        @Override public int continuesPerCredit() { return 3; }
+        @Override public int menuScreenTimer() { return MenuScreen.ATTRACT_TIMEOUT_SECONDS; }
+        @Override public int attractScreenTimer() { return AttractScreen.TIMEOUT_SECONDS; }
+        @Override public int limitTimer() { return GameScreen.LIMIT_TIMEOUT_SECONDS; }
+        @Override public int warningTimer() { return GameScreen.WARNING_TIMEOUT_SECONDS; }
+        @Override public int continueTimer() { return GameScreen.CONTINUE_TIMEOUT_SECONDS; }
+        @Override public boolean showFPS() { return false; }
+        @Override public boolean playMusic() { return false; }
+        @Override public boolean showDebug() { return false; }
+        @Override public boolean unlockAll() { return true; }
+        @Override public int tickRate() { return LudumDare35.DEFAULT_TICK_RATE; }
+        @Override public int maxTicksPerFrame() { return LudumDare35.DEFAULT_MAX_TICKS_PER_FRAME; }
+        @Override public int targetFrameRate() { return LudumDare35.DEFAULT_TARGET_FRAME_RATE; }
+        @Override public float minQuality() { return QualityGovernor.DEFAULT_MIN_QUALITY; }
+        @Override public float maxQuality() { return QualityGovernor.DEFAULT_MAX_QUALITY; }
+        @Override public int minTickRate() { return LudumDare35.DEFAULT_TICK_RATE; }
+        @Override public int levelCacheSize() { return LevelCache.DEFAULT_SIZE_KB; }
+        @Override public TaskRunner taskRunner() { return SerialTaskRunner.INSTANCE; }
+        @Override public int particleThreshold() { return ParticleManager.PARALLEL_THRESHOLD; }
+        @Override public int dustThreshold() { return DustEmitter.PARALLEL_THRESHOLD; }
+    }
+
+}
@@ -0,0 +1,126 @@
+package lando.systems.ld35.ParticleSystem;
+
+import com.badlogic.gdx.graphics.Color;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Vertices come out in SpriteBatch's layout: x, y, packed color, u, v per corner, four corners per quad.
+ */
+public class TrailMeshTest {
+
+    private static final float EPSILON = 0.0001f;
+
+    @Test
+    public void quadCoversItsBoundsWithTheWholeRegion() {
+        TrailMesh mesh = new TrailMesh(4);
+        mesh.setRegion(0.25f, 0.5f, 0.75f, 1f);
+        float color = Color.toFloatBits(1f, 0.5f, 0.25f, 0.8f);
+        mesh.addQuad(10, 20, 4, 6, color);
+
+        assertEquals(1, mesh.quadCount());
+        assertEquals(TrailMesh.QUAD_SIZE, mesh.size());
+        // Clockwise from the bottom left, v flipped so the region reads upright
+        assertVertex(mesh, 0, 10, 20, color, 0.25f, 1f);
+        assertVertex(mesh, 1, 10, 26, color, 0.25f, 0.5f);
+        assertVertex(mesh, 2, 14, 26, color, 0.75f, 0.5f);
+        assertVertex(mesh, 3, 14, 20, color, 0.75f, 1f);
+    }
+
+    @Test
+    public void growsAndKeepsWhatWasWritten() {
+        TrailMesh mesh = new TrailMesh(1);
+        float color = Color.WHITE.toFloatBits();
+        for (int i = 0; i < 5; i++) {
+            mesh.addQuad(i, 0, 1, 1, color);
+        }
+
+        assertEquals(5, mesh.quadCount());
+        for (int i = 0; i < 5; i++) {
+            assertVertex(mesh, i * 4, i, 0, color, 0, 1);
+        }
+
+        mesh.clear();
+        assertEquals(0, mesh.size());
+    }
+
+    @Test
+    public void ribbonHasAQuadBetweenEachPairOfPoints() {
+        TrailMesh mesh = new TrailMesh(1);
+        mesh.addRibbon(new float[] { 0, 10, 20, 30 }, new float[] { 0, 0, 0, 0 }, 0, 4, 8, 1, 1, 1, 1);
+        assertEquals(3, mesh.quadCount());
+
+        mesh.clear();
+        mesh.addRibbon(new float[] { 0 }, new float[] { 0 }, 0, 1, 8, 1, 1, 1, 1);
+        assertEquals(0, mesh.quadCount());
+    }
+
+    @Test
+    public void ribbonTapersWidthAndAlphaTowardTheOldestPoint() {
+        TrailMesh mesh = new TrailMesh(2);
+        mesh.setRegion(0, 0, 1, 1);
+        // Left to right, so the left edge of the ribbon is +y
+        mesh.addRibbon(new float[] { 0, 10, 20 }, new float[] { 5, 5, 5 }, 0, 3, 6, 1f, 0.5f, 0f, 0.9f);
+
+        float third = Color.toFloatBits(1f, 0.5f, 0f, 0.3f);
+        float twoThirds = Color.toFloatBits(1f, 0.5f, 0f, 0.6f);
+        float newest = Color.toFloatBits(1f, 0.5f, 0f, 0.9f);
+        assertEquals(2, mesh.quadCount());
+        // Half widths 1, 2 and 3 along the ribbon
+        assertVertex(mesh, 0, 0, 6, third, 0, 0.5f);
+        assertVertex(mesh, 1, 10, 7, twoThirds, 0, 0.5f);
+        assertVertex(mesh, 2, 10, 3, twoThirds, 1, 0.5f);
+        assertVertex(mesh, 3, 0, 4, third, 1, 0.5f);
+        assertVertex(mesh, 4, 10, 7, twoThirds, 0, 0.5f);
+        assertVertex(mesh, 5, 20, 8, newest, 0, 0.5f);
+        assertVertex(mesh, 6, 20, 2, newest, 1, 0.5f);
+        assertVertex(mesh, 7, 10, 3, twoThirds, 1, 0.5f);
+    }
+
+    @Test
+    public void ribbonEdgesFollowTheTurn() {
+        TrailMesh mesh = new TrailMesh(2);
+        // Straight up: the left edge is -x
+        mesh.addRibbon(new float[] { 0, 0 }, new float[] { 0, 10 }, 0, 2, 4, 1, 1, 1, 1);
+        float[] vertices = mesh.getVertices();
+        assertEquals(-1, vertices[0], EPSILON);
+        assertEquals(0, vertices[1], EPSILON);
+        assertEquals(-2, vertices[TrailMesh.VERTEX_SIZE], EPSILON);
+        assertEquals(10, vertices[TrailMesh.VERTEX_SIZE + 1], EPSILON);
+    }
+
+    @Test
+    public void ribbonReadsARingBufferAcrossItsEnd() {
+        float[] lineX = { 0, 10, 20, 35 };
+        float[] lineY = { 0, 5, 5, 0 };
+        TrailMesh line = new TrailMesh(3);
+        line.addRibbon(lineX, lineY, 0, 4, 6, 1, 1, 1, 1);
+
+        // The same points in a ring of five, oldest at index 2, wrapping round to the newest at index 0
+        float[] ringX = { 35, 99, 0, 10, 20 };
+        float[] ringY = { 0, 99, 0, 5, 5 };
+        TrailMesh ring = new TrailMesh(3);
+        ring.addRibbon(ringX, ringY, 2, 4, 6, 1, 1, 1, 1);
+
+        assertEquals(line.size(), ring.size());
+        float[] expected = new float[line.size()];
+        float[] actual = new float[ring.size()];
+        System.arraycopy(line.getVertices(), 0, expected, 0, expected.length);
+        System.arraycopy(ring.getVertices(), 0, actual, 0, actual.length);
+        assertArrayEquals(expected, actual, 0f);
+    }
+
+    private static void assertVertex(TrailMesh mesh, int vertex, float x, float y, float color, float u, float v) {
+        float[] vertices = mesh.getVertices();
+        int at = vertex * TrailMesh.VERTEX_SIZE;
+        String where = "vertex " + vertex;
+        assertEquals(where + " x", x, vertices[at], EPSILON);
+        assertEquals(where + " y", y, vertices[at + 1], EPSILON);
+        assertEquals(where + " color", Float.floatToRawIntBits(color), Float.floatToRawIntBits(vertices[at + 2]));
+        assertEquals(where + " u", u, vertices[at + 3], EPSILON);
+        assertEquals(where + " v", v, vertices[at + 4], EPSILON);
+    }
+
+}
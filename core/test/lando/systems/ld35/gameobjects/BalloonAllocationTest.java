@@ -0,0 +1,100 @@
+package lando.systems.ld35.gameobjects;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.sun.management.ThreadMXBean;
+import lando.systems.ld35.HeadlessGame;
+import lando.systems.ld35.LudumDare35;
+import lando.systems.ld35.utils.Assets;
+import lando.systems.ld35.utils.Level;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The balloon's per-tick path (state forces, wind and magnets, tile, rope and door collision, the response)
+ * must not allocate once it is warm, or the Android build hitches on GC.
+ */
+public class BalloonAllocationTest {
+
+    private static final float DT               = 1f / 60f;
+    private static final int   WARM_UP_UPDATES  = 3000;
+    private static final int   MEASURED_UPDATES = 10000;
+    // Long enough in each shape for it to drift into something
+    private static final int   UPDATES_PER_STATE = 250;
+
+    private static final Balloon.State[] STATES = {
+            Balloon.State.NORMAL, Balloon.State.LIFT, Balloon.State.HEAVY,
+            Balloon.State.SPINNER, Balloon.State.MAGNET, Balloon.State.BUZZSAW
+    };
+
+    private static LevelInfo level;
+
+    @BeforeClass
+    public static void loadLevel() {
+        HeadlessGame.start();
+        // Doors, ropes and fans blowing every way, and no spikes to end the run early
+        level = LudumDare35.game.levels.take(Level.DOOR_MED.ordinal());
+    }
+
+    @AfterClass
+    public static void releaseLevel() {
+        LudumDare35.game.levels.release(level);
+    }
+
+    @Test
+    public void updateAllocatesNothingOnceWarm() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue("thread allocation counting is not supported by this JVM", threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        Balloon balloon = new Balloon(level.details.getStart());
+        run(balloon, WARM_UP_UPDATES);
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        int collisions = run(balloon, MEASURED_UPDATES);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        assertTrue("the balloon never touched anything", collisions > 0);
+        assertEquals("bytes allocated over " + MEASURED_UPDATES + " updates", 0L, allocated);
+    }
+
+    /**
+     * Ticks the level and balloon the way GameScreen does, cycling through every shape the player can pick.
+     * Returns the number of ticks that ended in a collision.
+     */
+    private static int run(Balloon balloon, int updates) {
+        int collisions = 0;
+        for (int i = 0; i < updates; i++) {
+            int state = (i / UPDATES_PER_STATE) % STATES.length;
+            if (balloon.currentState != STATES[state]) {
+                // Straight into the new shape from the start, changeState() would start tweens
+                balloon.reset(level.details.startX, level.details.startY);
+                balloon.currentState = STATES[state];
+                balloon.currentTexture = textureOf(STATES[state]);
+            }
+            balloon.beginTick();
+            level.update(DT);
+            balloon.update(DT, level);
+            if (balloon.collided) collisions++;
+        }
+        return collisions;
+    }
+
+    private static TextureRegion textureOf(Balloon.State state) {
+        switch (state) {
+            case LIFT:    return Assets.rocketTexture;
+            case HEAVY:   return Assets.weightTexture;
+            case SPINNER: return Assets.torusTexture;
+            case MAGNET:  return Assets.magnetTexture;
+            case BUZZSAW: return Assets.buzzsawTexture;
+            default:      return Assets.balloonTexture;
+        }
+    }
+
+}
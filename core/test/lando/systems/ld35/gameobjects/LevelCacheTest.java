@@ -0,0 +1,143 @@
+package lando.systems.ld35.gameobjects;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.Array;
+import lando.systems.ld35.HeadlessGame;
+import lando.systems.ld35.utils.DistanceField;
+import lando.systems.ld35.utils.Level;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Every reference taken to a shared texture is given back, and the texture is disposed with the last one.
+ */
+public class LevelCacheTest {
+
+    private static final String PATH = "maps/test.png";
+
+    private static class CountingTexture extends Texture {
+        int disposals;
+
+        CountingTexture() {
+            super(new Pixmap(4, 4, Pixmap.Format.RGBA8888));
+        }
+
+        @Override
+        public void dispose() {
+            disposals++;
+            super.dispose();
+        }
+    }
+
+    @BeforeClass
+    public static void startGame() {
+        HeadlessGame.start();
+    }
+
+    @Test
+    public void acquiringAndReleasingComesBackToZero() {
+        LevelCache cache = new LevelCache(LevelCache.DEFAULT_SIZE_KB);
+        CountingTexture texture = new CountingTexture();
+        assertNull(cache.acquireTexture(PATH));
+
+        cache.putTexture(PATH, texture);
+        assertEquals(1, cache.getReferences(PATH));
+        assertSame(texture, cache.acquireTexture(PATH));
+        assertSame(texture, cache.acquireTexture(PATH));
+        assertEquals(3, cache.getReferences(PATH));
+
+        cache.releaseTexture(PATH);
+        cache.releaseTexture(PATH);
+        assertEquals(1, cache.getReferences(PATH));
+        assertEquals(0, texture.disposals);
+
+        cache.releaseTexture(PATH);
+        assertEquals(0, cache.getReferences(PATH));
+        assertEquals(1, texture.disposals);
+        assertNull(cache.acquireTexture(PATH));
+
+        // Releasing what is already gone changes nothing
+        cache.releaseTexture(PATH);
+        assertEquals(1, texture.disposals);
+    }
+
+    @Test
+    public void cachedLevelHoldsItsImagesUntilDropped() {
+        LevelCache cache = new LevelCache(LevelCache.DEFAULT_SIZE_KB);
+        Level level = Level.DOOR_MED;
+        LevelData data = LevelInfo.readMap(level.mapName);
+        Array<String> paths = data.getImagePaths();
+        assertTrue("no images", paths.size > 0);
+
+        // As LevelLoader does: the level being played makes the textures, then the cache takes its own references
+        Array<CountingTexture> textures = new Array<CountingTexture>();
+        for (int i = 0; i < paths.size; i++) {
+            CountingTexture texture = new CountingTexture();
+            textures.add(texture);
+            cache.putTexture(paths.get(i), texture);
+        }
+        cache.put(level, data, new DistanceField(32, 32));
+        assertReferences(cache, paths, 2);
+
+        // The level is played and released, the cache keeps its images
+        cache.releaseTextures(data);
+        assertReferences(cache, paths, 1);
+        assertSame(data, cache.getData(level));
+
+        // Taken again from the cache, and released again
+        for (int i = 0; i < paths.size; i++) {
+            assertSame(textures.get(i), cache.acquireTexture(paths.get(i)));
+        }
+        assertReferences(cache, paths, 2);
+        cache.releaseTextures(data);
+
+        cache.dispose();
+        assertReferences(cache, paths, 0);
+        assertNull(cache.getData(level));
+        for (int i = 0; i < textures.size; i++) {
+            assertEquals(paths.get(i), 1, textures.get(i).disposals);
+        }
+    }
+
+    @Test
+    public void levelOverBudgetIsDroppedAndGivesBackItsReferences() {
+        LevelCache cache = new LevelCache(0);
+        Level level = Level.DOOR_MED;
+        LevelData data = LevelInfo.readMap(level.mapName);
+        Array<String> paths = data.getImagePaths();
+        Array<CountingTexture> textures = new Array<CountingTexture>();
+        for (int i = 0; i < paths.size; i++) {
+            CountingTexture texture = new CountingTexture();
+            textures.add(texture);
+            cache.putTexture(paths.get(i), texture);
+        }
+        cache.put(level, data, new DistanceField(32, 32));
+
+        // Nothing fits, so the level went straight back out, leaving only the played level's references
+        assertNull(cache.getData(level));
+        assertReferences(cache, paths, 1);
+        for (int i = 0; i < textures.size; i++) {
+            assertFalse(paths.get(i), textures.get(i).disposals > 0);
+        }
+
+        cache.releaseTextures(data);
+        assertReferences(cache, paths, 0);
+        for (int i = 0; i < textures.size; i++) {
+            assertEquals(paths.get(i), 1, textures.get(i).disposals);
+        }
+    }
+
+    private static void assertReferences(LevelCache cache, Array<String> paths, int references) {
+        for (int i = 0; i < paths.size; i++) {
+            assertEquals(paths.get(i), references, cache.getReferences(paths.get(i)));
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package lando.systems.ld35.utils;
+
+import com.badlogic.gdx.math.Vector2;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The bitboard contact moment must match the per-pixel moment Balloon used to sum,
+ * on contacts recorded from the shipped levels (see balloon-contacts.txt).
+ */
+public class CollisionMaskTest {
+
+    private static final String CONTACTS = "balloon-contacts.txt";
+
+    private static class Contact {
+        String level;
+        int    pixels;
+        int    momentX;
+        int    momentY;
+        int[]  board = new int[32];
+    }
+
+    @Test
+    public void recordedContactsMatchPerPixelMoment() throws IOException {
+        List<Contact> contacts = loadContacts();
+        assertTrue("no recorded contacts", contacts.size() > 0);
+
+        Vector2 expected = new Vector2();
+        Vector2 actual = new Vector2();
+        for (int i = 0; i < contacts.size(); i++) {
+            Contact contact = contacts.get(i);
+            String where = contact.level + ", contact " + i;
+
+            // The recorded values still come out of the per-pixel loop
+            expected.set(0, 0);
+            assertEquals(where, contact.pixels, perPixelMoment(contact.board, expected));
+            assertEquals(where, contact.momentX, expected.x, 0f);
+            assertEquals(where, contact.momentY, expected.y, 0f);
+
+            actual.set(0, 0);
+            assertEquals(where, contact.pixels, CollisionMask.addContactMoment(contact.board, actual));
+            assertEquals(where, contact.momentX, actual.x, 0f);
+            assertEquals(where, contact.momentY, actual.y, 0f);
+        }
+    }
+
+    @Test
+    public void everySinglePixelMatchesPerPixelMoment() {
+        int[] board = new int[32];
+        Vector2 expected = new Vector2();
+        Vector2 actual = new Vector2();
+        for (int y = 0; y < 32; y++) {
+            for (int x = 0; x < 32; x++) {
+                board[y] = 1 << x;
+                expected.set(0, 0);
+                actual.set(0, 0);
+                perPixelMoment(board, expected);
+                assertEquals(1, CollisionMask.addContactMoment(board, actual));
+                assertEquals("pixel " + x + ", " + y, expected, actual);
+            }
+            board[y] = 0;
+        }
+    }
+
+    @Test
+    public void fullBoardMatchesPerPixelMoment() {
+        int[] board = new int[32];
+        for (int y = 0; y < 32; y++) {
+            board[y] = 0xFFFFFFFF;
+        }
+        Vector2 expected = new Vector2();
+        Vector2 actual = new Vector2();
+        assertEquals(32 * 32, perPixelMoment(board, expected));
+        assertEquals(32 * 32, CollisionMask.addContactMoment(board, actual));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void momentAddsToOut() {
+        int[] board = new int[32];
+        board[0] = 1;
+        Vector2 out = new Vector2(100, 200);
+        CollisionMask.addContactMoment(board, out);
+        assertEquals(new Vector2(100 + 16, 200 + 16), out);
+    }
+
+    /**
+     * The loop from the original Balloon.update(), over the board one pixel at a time
+     */
+    private static int perPixelMoment(int[] board, Vector2 out) {
+        int count = 0;
+        for (int i = 0; i < 32 * 32; i++) {
+            if ((board[i / 32] & (1 << (i % 32))) != 0) {
+                count++;
+                int x = 16 - (i % 32);
+                int y = 16 - (i / 32);
+                if (x <= 0) x--;
+                if (y <= 0) y--;
+                out.add(x, y);
+            }
+        }
+        return count;
+    }
+
+    private static List<Contact> loadContacts() throws IOException {
+        List<Contact> contacts = new ArrayList<Contact>();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(CollisionMaskTest.class.getResourceAsStream(CONTACTS), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.length() == 0 || line.charAt(0) == '#') continue;
+                String[] fields = line.split(" ");
+                assertEquals(line, 4 + 32, fields.length);
+                Contact contact = new Contact();
+                contact.level = Level.valueOf(fields[0]).name();
+                contact.pixels = Integer.parseInt(fields[1]);
+                contact.momentX = Integer.parseInt(fields[2]);
+                contact.momentY = Integer.parseInt(fields[3]);
+                for (int y = 0; y < 32; y++) {
+                    contact.board[y] = (int) Long.parseLong(fields[4 + y], 16);
+                }
+                contacts.add(contact);
+            }
+        } finally {
+            reader.close();
+        }
+        return contacts;
+    }
+
+}
@@ -3,7 +3,9 @@ package lando.systems.ld35.desktop;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 import lando.systems.ld35.LudumDare35;
+import lando.systems.ld35.gameobjects.LevelCache;
 import lando.systems.ld35.utils.Config;
+import lando.systems.ld35.utils.QualityGovernor;
 
 public class DesktopLauncher {
     public static void main (String[] args) {
@@ -77,6 +79,66 @@ public class DesktopLauncher {
                         actionResolver.continueTimer = Integer.parseInt(parts[1]);
                     }
                 }
+                else if (arg.contains("mintickrate")) {
+                    String[] parts = arg.split("=");
+                    if (parts.length >= 2) {
+                        actionResolver.minTickRate = Integer.parseInt(parts[1]);
+                    }
+                }
+                else if (arg.contains("tickrate")) {
+                    String[] parts = arg.split("=");
+                    if (parts.length >= 2) {
+                        actionResolver.tickRate = Integer.parseInt(parts[1]);
+                    }
+                }
+                else if (arg.contains("maxticks")) {
+                    String[] parts = arg.split("=");
+                    if (parts.length >= 2) {
+                        actionResolver.maxTicksPerFrame = Integer.parseInt(parts[1]);
+                    }
+                }
+                else if (arg.contains("targetfps")) {
+                    String[] parts = arg.split("=");
+                    if (parts.length >= 2) {
+                        actionResolver.targetFrameRate = Integer.parseInt(parts[1]);
+                    }
+                }
+                else if (arg.contains("minquality")) {
+                    String[] parts = arg.split("=");
+                    if (parts.length >= 2) {
+                        actionResolver.minQuality = Float.parseFloat(parts[1]);
+                    }
+                }
+                else if (arg.contains("maxquality")) {
+                    String[] parts = arg.split("=");
+                    if (parts.length >= 2) {
+                        actionResolver.maxQuality = Float.parseFloat(parts[1]);
+                    }
+                }
+                else if (arg.contains("threads")) {
+                    String[] parts = arg.split("=");
+                    if (parts.length >= 2) {
+                        actionResolver.threads = Integer.parseInt(parts[1]);
+                    }
+                }
+                else if (arg.contains("particlethreshold")) {
+                    String[] parts = arg.split("=");
+                    if (parts.length >= 2) {
+                        actionResolver.particleThreshold = Integer.parseInt(parts[1]);
+                    }
+                }
+                else if (arg.contains("dustthreshold")) {
+                    String[] parts = arg.split("=");
+                    if (parts.length >= 2) {
+                        actionResolver.dustThreshold = Integer.parseInt(parts[1]);
+                    }
+                }
+                else if (arg.contains("levelcache")) {
+                    String[] parts = arg.split("=");
+                    if (parts.length >= 2) {
+                        actionResolver.levelCacheSize = Integer.parseInt(parts[1]);
+                    }
+                }
                 else {
                     throw new Exception("Unknown Command...");
                 }
@@ -104,6 +166,16 @@ public class DesktopLauncher {
         System.out.println("playmusic={true:false} - Play the music (Default: true)");
         System.out.println("lives=# - Number of lives per credit (Default: 5)");
         System.out.println("continues=# - Number of Continues (Default: 3)");
+        System.out.println("tickrate=# - Simulation ticks per second (Default: " + LudumDare35.DEFAULT_TICK_RATE + ")");
+        System.out.println("maxticks=# - Most simulation ticks to catch up on in one frame (Default: " + LudumDare35.DEFAULT_MAX_TICKS_PER_FRAME + ")");
+        System.out.println("targetfps=# - Frame rate effects are scaled back to hold (Default: " + LudumDare35.DEFAULT_TARGET_FRAME_RATE + ")");
+        System.out.println("minquality=# - Smallest fraction of full effects to scale back to (Default: " + QualityGovernor.DEFAULT_MIN_QUALITY + ")");
+        System.out.println("maxquality=# - Largest fraction of full effects to scale up to (Default: " + QualityGovernor.DEFAULT_MAX_QUALITY + ")");
+        System.out.println("mintickrate=# - Lowest tick rate to drop to once effects are at minquality (Default: same as tickrate)");
+        System.out.println("threads=# - Threads to update large numbers of particles on, 1 for none (Default: number of cores)");
+        System.out.println("particlethreshold=# - Particles from which their update is split over the threads (Default: off)");
+        System.out.println("dustthreshold=# - Dust motes from which their update is split over the threads (Default: off)");
+        System.out.println("levelcache=# - Kilobytes of maps and textures kept from levels already loaded (Default: " + LevelCache.DEFAULT_SIZE_KB + ")");
         System.out.println("Exiting");
         System.exit(0);
     }
@@ -0,0 +1,178 @@
+package lando.systems.ld35.desktop;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import lando.systems.ld35.gameobjects.Door;
+import lando.systems.ld35.gameobjects.ForceEntity;
+import lando.systems.ld35.gameobjects.ForceEntityDirection;
+import lando.systems.ld35.gameobjects.LevelData;
+import lando.systems.ld35.gameobjects.LevelObject;
+import lando.systems.ld35.gameobjects.TmxLevelReader;
+import lando.systems.ld35.utils.CollisionMask;
+import lando.systems.ld35.utils.Level;
+import lando.systems.ld35.utils.SolidGrid;
+import lando.systems.ld35.utils.WindField;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * Compiles the TMX file of every Level into the LevelData file next to it, so the game never parses XML,
+ * reads back pixmaps or marches wind while a level loads. Maps are read with the same TmxLevelReader the game
+ * falls back on.
+ *
+ * Masks, occupancy and wind are worked out the way LevelInfo does it at runtime, including the quirks:
+ * masks of flipped objects start at the far edge of their region, and diagonal flips do not change a tile's mask.
+ *
+ * Arguments: the assets directory (Default: the working directory)
+ */
+public class LevelBaker {
+
+    public static void main(String[] args) throws IOException {
+        File assets = new File(args.length > 0 ? args[0] : ".");
+        ObjectMap<String, Boolean> baked = new ObjectMap<String, Boolean>();
+        long bytes = 0;
+        for (Level level : Level.values()) {
+            if (baked.containsKey(level.mapName)) continue;
+            baked.put(level.mapName, true);
+            File out = new File(assets, LevelData.bakedPath(level.mapName));
+            LevelDataWriter.write(bake(assets, level.mapName), out);
+            bytes += out.length();
+        }
+        System.out.println("Baked " + baked.size + " levels, " + (bytes / 1024) + " KB");
+    }
+
+    public static LevelData bake(File assets, String mapName) throws IOException {
+        LevelData data = TmxLevelReader.read(new InputStreamReader(new FileInputStream(new File(assets, mapName)), "UTF-8"),
+                                             mapName);
+        ObjectMap<String, BufferedImage> images = new ObjectMap<String, BufferedImage>();
+
+        // Every tile's image and where it sits in it, by gid
+        IntMap<TileImage> tiles = new IntMap<TileImage>();
+        for (LevelData.Tileset tileset : data.tilesets) {
+            if (tileset.image != null) {
+                BufferedImage image = image(assets, tileset.image, images);
+                int stopWidth = image.getWidth() - tileset.tileWidth;
+                int stopHeight = image.getHeight() - tileset.tileHeight;
+                int id = tileset.firstGid;
+                for (int y = tileset.margin; y <= stopHeight; y += tileset.tileHeight + tileset.spacing) {
+                    for (int x = tileset.margin; x <= stopWidth; x += tileset.tileWidth + tileset.spacing) {
+                        tiles.put(id++, new TileImage(image, x, y, tileset.tileWidth, tileset.tileHeight));
+                    }
+                }
+            } else {
+                for (int i = 0; i < tileset.tileIds.size; i++) {
+                    BufferedImage image = image(assets, tileset.tileImages.get(i), images);
+                    tiles.put(tileset.firstGid + tileset.tileIds.get(i),
+                              new TileImage(image, 0, 0, image.getWidth(), image.getHeight()));
+                }
+            }
+        }
+
+        // Masks for every foreground tile, and for the regions of the objects that collide
+        data.masks = new IntMap<CollisionMask>();
+        SolidGrid solidGrid = new SolidGrid(data.tilesWide, data.tilesHigh);
+        for (int y = 0; y < data.tilesHigh; y++) {
+            for (int x = 0; x < data.tilesWide; x++) {
+                int id = data.foreground.gids[x + (data.tilesHigh - 1 - y) * data.tilesWide] & LevelData.GID_MASK;
+                TileImage tile = tiles.get(id);
+                if (tile == null) continue;
+                CollisionMask mask = data.masks.get(id);
+                if (mask == null) {
+                    mask = tile.mask(false, false);
+                    data.masks.put(id, mask);
+                }
+                solidGrid.setTile(x, y, mask);
+            }
+        }
+        for (int i = 0; i < data.objects.size; i++) {
+            LevelData.ObjectRecord record = data.objects.get(i);
+            if (record.type != LevelObject.door && record.type != LevelObject.spikes && record.type != LevelObject.rope) {
+                continue;
+            }
+            TileImage tile = tiles.get(record.gid & LevelData.GID_MASK);
+            if (tile == null || data.masks.containsKey(record.gid)) continue;
+            data.masks.put(record.gid, tile.mask(record.isFlipHorizontally(), record.isFlipVertically()));
+        }
+        data.tileBits = solidGrid.getTileBits();
+        data.subCells = solidGrid.getSubCells();
+
+        // Wind as the fans first blow it, with every door closed
+        Array<Rectangle> doorBounds = new Array<Rectangle>();
+        for (int i = 0; i < data.objects.size; i++) {
+            LevelData.ObjectRecord record = data.objects.get(i);
+            if (record.type != LevelObject.door) continue;
+            Rectangle bounds = new Rectangle(record.x, record.y, record.width, record.height);
+            Rectangle closed = Door.rotatedBounds(bounds, record.rotation, new Rectangle());
+            doorBounds.add(closed);
+            solidGrid.addDoor(closed);
+        }
+        Rectangle step = new Rectangle();
+        for (int i = 0; i < data.objects.size; i++) {
+            LevelData.ObjectRecord record = data.objects.get(i);
+            if (record.type != LevelObject.fan) continue;
+            Vector2 direction = ForceEntityDirection.fromRotation(record.rotation, record.isFlipHorizontally())
+                                                   .getDirection();
+            Rectangle mouth = ForceEntity.mouthBounds(new Rectangle(record.x, record.y, record.width, record.height),
+                                                      direction, new Rectangle());
+            WindField wind = new WindField(new Vector2(), new Rectangle(), direction);
+            WindField.march(solidGrid, doorBounds, direction, mouth, step, wind);
+            record.wind = wind.bounds;
+        }
+        return data;
+    }
+
+    private static BufferedImage image(File assets, String path, ObjectMap<String, BufferedImage> images) throws IOException {
+        BufferedImage image = images.get(path);
+        if (image == null) {
+            image = ImageIO.read(new File(assets, path));
+            if (image == null) throw new GdxRuntimeException("Can't read image " + path);
+            images.put(path, image);
+        }
+        return image;
+    }
+
+    private static class TileImage {
+        final BufferedImage image;
+        final int           x;
+        final int           y;
+        final int           width;
+        final int           height;
+
+        TileImage(BufferedImage image, int x, int y, int width, int height) {
+            this.image = image;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Same pixels CollisionMask.fromPixmap reads for this tile's region. A flipped TextureRegion reports
+         * its far edge as its position, so flipped objects are read from there, and anything off the image is empty.
+         */
+        CollisionMask mask(boolean flipX, boolean flipY) {
+            int regionX = flipX ? x + width : x;
+            int regionY = flipY ? y + height : y;
+            CollisionMask mask = new CollisionMask(width, height);
+            for (int py = 0; py < height; py++) {
+                int texY = regionY + (height - 1 - py);
+                for (int px = 0; px < width; px++) {
+                    int texX = regionX + px;
+                    if (texX < 0 || texY < 0 || texX >= image.getWidth() || texY >= image.getHeight()) continue;
+                    if ((image.getRGB(texX, texY) >>> 24) != 0) mask.set(px, py);
+                }
+            }
+            return mask;
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package lando.systems.ld35.desktop;
+
+import com.badlogic.gdx.utils.IntArray;
+import lando.systems.ld35.gameobjects.LevelData;
+import lando.systems.ld35.utils.CollisionMask;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes LevelData in the layout LevelData.read expects
+ */
+public class LevelDataWriter {
+
+    public static void write(LevelData data, File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            write(data, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    public static void write(LevelData data, DataOutputStream out) throws IOException {
+        out.writeInt(LevelData.MAGIC);
+        out.writeInt(LevelData.VERSION);
+        out.writeInt(data.tilesWide);
+        out.writeInt(data.tilesHigh);
+        out.writeInt(data.tileWidth);
+        out.writeInt(data.tileHeight);
+
+        out.writeInt(data.tilesets.size);
+        for (LevelData.Tileset tileset : data.tilesets) {
+            out.writeInt(tileset.firstGid);
+            writeString(out, tileset.image);
+            out.writeInt(tileset.tileWidth);
+            out.writeInt(tileset.tileHeight);
+            out.writeInt(tileset.spacing);
+            out.writeInt(tileset.margin);
+            out.writeInt(tileset.offsetX);
+            out.writeInt(tileset.offsetY);
+            out.writeInt(tileset.tileIds.size);
+            for (int i = 0; i < tileset.tileIds.size; i++) {
+                out.writeInt(tileset.tileIds.get(i));
+                writeString(out, tileset.tileImages.get(i));
+            }
+        }
+
+        writeLayer(out, data.foreground);
+        writeLayer(out, data.background);
+
+        out.writeInt(data.objects.size);
+        for (LevelData.ObjectRecord record : data.objects) {
+            out.writeInt(record.type.ordinal());
+            out.writeFloat(record.x);
+            out.writeFloat(record.y);
+            out.writeFloat(record.width);
+            out.writeFloat(record.height);
+            out.writeFloat(record.rotation);
+            out.writeInt(record.gid);
+            writeString(out, record.group);
+            writeString(out, record.triggeredBy);
+            out.writeFloat(record.openRotation);
+            out.writeInt(record.wind != null ? 1 : 0);
+            if (record.wind != null) {
+                out.writeFloat(record.wind.x);
+                out.writeFloat(record.wind.y);
+                out.writeFloat(record.wind.width);
+                out.writeFloat(record.wind.height);
+            }
+        }
+
+        // In key order, so baking the same map twice gives the same bytes
+        IntArray keys = data.masks.keys().toArray();
+        keys.sort();
+        out.writeInt(keys.size);
+        for (int i = 0; i < keys.size; i++) {
+            CollisionMask mask = data.masks.get(keys.get(i));
+            out.writeInt(keys.get(i));
+            out.writeInt(mask.width);
+            out.writeInt(mask.height);
+            writeInts(out, mask.bits);
+        }
+
+        writeInts(out, data.tileBits);
+        for (int i = 0; i < data.subCells.length; i++) {
+            out.writeShort(data.subCells[i]);
+        }
+    }
+
+    private static void writeLayer(DataOutputStream out, LevelData.Layer layer) throws IOException {
+        out.writeInt(layer.visible ? 1 : 0);
+        out.writeFloat(layer.opacity);
+        IntArray palette = new IntArray();
+        for (int i = 0; i < layer.gids.length; i++) {
+            if (!palette.contains(layer.gids[i])) palette.add(layer.gids[i]);
+        }
+        if (palette.size > 65536) throw new IOException(layer.name + " uses too many different tiles");
+        palette.sort();
+        out.writeInt(palette.size);
+        writeInts(out, palette.toArray());
+        for (int i = 0; i < layer.gids.length; i++) {
+            int index = palette.indexOf(layer.gids[i]);
+            if (palette.size > 256) out.writeShort(index);
+            else out.writeByte(index);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.length());
+        out.writeChars(value);
+    }
+
+}
@@ -0,0 +1,180 @@
+package lando.systems.ld35.desktop;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.MathUtils;
+import lando.systems.ld35.ParticleSystem.DustEmitter;
+import lando.systems.ld35.ParticleSystem.ParticleManager;
+import lando.systems.ld35.ParticleSystem.WindParticle;
+import lando.systems.ld35.utils.ForceField;
+import lando.systems.ld35.utils.SolidGrid;
+import lando.systems.ld35.utils.ThreadPoolTaskRunner;
+
+/**
+ * Times ParticleManager and DustEmitter updates run serially and split over a thread pool, at doubling entity
+ * counts, and checks both ways end up with exactly the same state. The count from which the pool wins at every
+ * larger size is where PARALLEL_THRESHOLD belongs on that machine.
+ *
+ * Arguments: threads=# (Default: number of cores), ticks=# (Default: 100)
+ */
+public class UpdateBenchmark {
+
+    private static final int   MAP_TILES = 64;
+    private static final int   SEED      = 35;
+    private static final float DT        = 1f / 60f;
+    private static final int   WARMUP    = 3;
+
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int ticks = 100;
+        for (String arg : args) {
+            String[] parts = arg.split("=");
+            if (parts.length < 2) continue;
+            if (parts[0].equalsIgnoreCase("threads")) threads = Integer.parseInt(parts[1]);
+            if (parts[0].equalsIgnoreCase("ticks")) ticks = Integer.parseInt(parts[1]);
+        }
+
+        ThreadPoolTaskRunner runner = new ThreadPoolTaskRunner(threads);
+        ForceField field = new ForceField(MAP_TILES, MAP_TILES);
+        field.addWind(0, 0, MAP_TILES - 1, MAP_TILES / 2, 60f, 0);
+        field.addWind(0, MAP_TILES / 4, MAP_TILES - 1, MAP_TILES - 1, 0, 60f);
+        SolidGrid solids = new SolidGrid(MAP_TILES, MAP_TILES);
+
+        System.out.println(threads + " threads, " + ticks + " ticks per run, "
+                           + Runtime.getRuntime().availableProcessors() + " cores");
+        System.out.println();
+        System.out.println("ParticleManager (chunk " + ParticleManager.CHUNK_SIZE + ")");
+        printHeader();
+        int crossover = -1;
+        for (int count = 512; count <= 65536; count *= 2) {
+            long serial = Long.MAX_VALUE;
+            long parallel = Long.MAX_VALUE;
+            boolean identical = true;
+            for (int run = 0; run < WARMUP; run++) {
+                ParticleManager a = particles(count, Integer.MAX_VALUE, runner);
+                ParticleManager b = particles(count, 0, runner);
+                serial = Math.min(serial, time(a, field, ticks));
+                parallel = Math.min(parallel, time(b, field, ticks));
+                identical &= same(a, b);
+            }
+            printRow(count, serial, parallel, ticks, identical);
+            if (parallel >= serial) crossover = -1;
+            else if (crossover < 0) crossover = count;
+        }
+        printCrossover(crossover);
+
+        System.out.println();
+        System.out.println("DustEmitter (chunk " + DustEmitter.CHUNK_SIZE + ")");
+        printHeader();
+        crossover = -1;
+        for (int count = 512; count <= 65536; count *= 2) {
+            long serial = Long.MAX_VALUE;
+            long parallel = Long.MAX_VALUE;
+            boolean identical = true;
+            for (int run = 0; run < WARMUP; run++) {
+                DustEmitter a = dust(count, Integer.MAX_VALUE, runner);
+                DustEmitter b = dust(count, 0, runner);
+                serial = Math.min(serial, time(a, field, solids, ticks));
+                parallel = Math.min(parallel, time(b, field, solids, ticks));
+                identical &= same(a, b);
+            }
+            printRow(count, serial, parallel, ticks, identical);
+            if (parallel >= serial) crossover = -1;
+            else if (crossover < 0) crossover = count;
+        }
+        printCrossover(crossover);
+
+        runner.dispose();
+    }
+
+    private static ParticleManager particles(int count, int threshold, ThreadPoolTaskRunner runner) {
+        ParticleManager particles = new ParticleManager(count);
+        particles.taskRunner = runner;
+        particles.parallelThreshold = threshold;
+        particles.seed = SEED;
+        MathUtils.random.setSeed(SEED);
+        float size = MAP_TILES * ForceField.TILE_SIZE;
+        for (int i = 0; i < count; i++) {
+            particles.emit(MathUtils.random(size), MathUtils.random(size), MathUtils.random(-50f, 50f),
+                           MathUtils.random(-50f, 50f), 0, -50f, Color.WHITE, Color.CLEAR, 2f, 1000f);
+        }
+        return particles;
+    }
+
+    private static DustEmitter dust(int count, int threshold, ThreadPoolTaskRunner runner) {
+        DustEmitter dust = new DustEmitter(0);
+        dust.taskRunner = runner;
+        dust.parallelThreshold = threshold;
+        dust.seed = SEED;
+        MathUtils.random.setSeed(SEED);
+        float size = MAP_TILES * ForceField.TILE_SIZE;
+        for (int i = 0; i < count; i++) {
+            dust.emit(MathUtils.random(size), MathUtils.random(size));
+        }
+        return dust;
+    }
+
+    private static long time(ParticleManager particles, ForceField field, int ticks) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            particles.update(DT, field);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long time(DustEmitter dust, ForceField field, SolidGrid solids, int ticks) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            dust.update(DT, field, solids);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static boolean same(ParticleManager a, ParticleManager b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (a.getX(i) != b.getX(i) || a.getY(i) != b.getY(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean same(DustEmitter a, DustEmitter b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            WindParticle moteA = a.get(i);
+            WindParticle moteB = b.get(i);
+            if (!moteA.pos.equals(moteB.pos) || !moteA.vel.equals(moteB.vel)) return false;
+        }
+        return true;
+    }
+
+    private static void printHeader() {
+        System.out.println("   count   serial ms/tick   parallel ms/tick   speedup   identical");
+    }
+
+    private static void printRow(int count, long serial, long parallel, int ticks, boolean identical) {
+        System.out.println(pad(Integer.toString(count), 8)
+                           + pad(millis(serial / ticks), 17)
+                           + pad(millis(parallel / ticks), 19)
+                           + pad(Float.toString(Math.round(100f * serial / parallel) / 100f), 10)
+                           + pad(Boolean.toString(identical), 12));
+    }
+
+    private static void printCrossover(int crossover) {
+        if (crossover < 0) {
+            System.out.println("Serial was faster at every count");
+        } else {
+            System.out.println("Parallel wins from " + crossover + " up");
+        }
+    }
+
+    private static String millis(long nanos) {
+        return Float.toString(Math.round(nanos / 1000f) / 1000f);
+    }
+
+    private static String pad(String text, int width) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = text.length(); i < width; i++) builder.append(' ');
+        return builder.append(text).toString();
+    }
+
+}
@@ -0,0 +1,181 @@
+package lando.systems.ld35.desktop;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.maps.tiled.objects.TiledMapTileMapObject;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import lando.systems.ld35.HeadlessGame;
+import lando.systems.ld35.gameobjects.LevelData;
+import lando.systems.ld35.gameobjects.LevelObject;
+import lando.systems.ld35.gameobjects.TmxLevelReader;
+import lando.systems.ld35.utils.CollisionMasks;
+import lando.systems.ld35.utils.Level;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A shipped map baked, written and read back must build the same map TmxMapLoader makes of the TMX file,
+ * and so must the streaming reader used for maps that were never baked.
+ */
+public class LevelBakerTest {
+
+    // Two tilesets, both layers, and doors, ropes, fans and triggers among its objects
+    private static final String MAP_NAME = Level.DOOR_MED.mapName;
+
+    private static TiledMap expected;
+
+    @BeforeClass
+    public static void loadWithTmxMapLoader() {
+        HeadlessGame.start();
+        expected = new TmxMapLoader().load(MAP_NAME);
+    }
+
+    @AfterClass
+    public static void disposeMap() {
+        expected.dispose();
+    }
+
+    @Test
+    public void bakedLevelReadsBackAsTmxMapLoaderLoadsIt() throws IOException {
+        LevelData baked = LevelBaker.bake(new File("."), MAP_NAME);
+        byte[] bytes = write(baked);
+        LevelData read = LevelData.read(bytes);
+
+        assertNotNull("baked level did not read back", read);
+        assertTrue(read.isBaked());
+        assertEquals(baked.masks.size, read.masks.size);
+        assertArrayEquals(baked.tileBits, read.tileBits);
+        assertArrayEquals(baked.subCells, read.subCells);
+        // Nothing is lost or reordered on the way through
+        assertArrayEquals(bytes, write(read));
+
+        assertMatchesTmxMapLoader(read);
+    }
+
+    @Test
+    public void unbakedLevelReadsAsTmxMapLoaderLoadsIt() {
+        LevelData data = TmxLevelReader.read(Gdx.files.internal(MAP_NAME));
+
+        assertFalse(data.isBaked());
+        assertMatchesTmxMapLoader(data);
+    }
+
+    // ------------------------------------------------------------------------
+
+    private static byte[] write(LevelData data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        LevelDataWriter.write(data, out);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static void assertMatchesTmxMapLoader(LevelData data) {
+        Array<TextureRegion> regions = new Array<TextureRegion>();
+        TiledMap actual = data.createMap(new CollisionMasks(), new ObjectMap<String, Texture>(), regions);
+        try {
+            assertLayer(LevelData.FOREGROUND_LAYER, expected, actual);
+            assertLayer(LevelData.BACKGROUND_LAYER, expected, actual);
+            assertObjects(expected.getLayers().get(LevelData.OBJECT_LAYER), data.objects, regions);
+        } finally {
+            actual.dispose();
+        }
+    }
+
+    private static void assertLayer(String name, TiledMap expectedMap, TiledMap actualMap) {
+        TiledMapTileLayer expected = (TiledMapTileLayer) expectedMap.getLayers().get(name);
+        TiledMapTileLayer actual = (TiledMapTileLayer) actualMap.getLayers().get(name);
+        assertNotNull(name, actual);
+        assertEquals(name + " width", expected.getWidth(), actual.getWidth());
+        assertEquals(name + " height", expected.getHeight(), actual.getHeight());
+        assertEquals(name + " visible", expected.isVisible(), actual.isVisible());
+        assertEquals(name + " opacity", expected.getOpacity(), actual.getOpacity(), 0f);
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                String where = name + " cell " + x + ", " + y;
+                TiledMapTileLayer.Cell expectedCell = expected.getCell(x, y);
+                TiledMapTileLayer.Cell actualCell = actual.getCell(x, y);
+                if (expectedCell == null) {
+                    assertNull(where, actualCell);
+                    continue;
+                }
+                assertNotNull(where, actualCell);
+                assertEquals(where + " flip x", expectedCell.getFlipHorizontally(), actualCell.getFlipHorizontally());
+                assertEquals(where + " flip y", expectedCell.getFlipVertically(), actualCell.getFlipVertically());
+                assertEquals(where + " rotation", expectedCell.getRotation(), actualCell.getRotation());
+                assertTile(where, expectedCell.getTile(), actualCell.getTile());
+            }
+        }
+    }
+
+    private static void assertTile(String where, TiledMapTile expected, TiledMapTile actual) {
+        assertEquals(where + " tile", expected.getId(), actual.getId());
+        assertEquals(where + " offset x", expected.getOffsetX(), actual.getOffsetX(), 0f);
+        assertEquals(where + " offset y", expected.getOffsetY(), actual.getOffsetY(), 0f);
+        assertRegion(where, expected.getTextureRegion(), actual.getTextureRegion());
+    }
+
+    private static void assertRegion(String where, TextureRegion expected, TextureRegion actual) {
+        assertNotNull(where + " region", actual);
+        assertEquals(where + " texture width", expected.getTexture().getWidth(), actual.getTexture().getWidth());
+        assertEquals(where + " texture height", expected.getTexture().getHeight(), actual.getTexture().getHeight());
+        assertEquals(where + " u", expected.getU(), actual.getU(), 0f);
+        assertEquals(where + " v", expected.getV(), actual.getV(), 0f);
+        assertEquals(where + " u2", expected.getU2(), actual.getU2(), 0f);
+        assertEquals(where + " v2", expected.getV2(), actual.getV2(), 0f);
+    }
+
+    /**
+     * Compares against what LevelInfo read from TmxMapLoader's objects before levels were baked
+     */
+    private static void assertObjects(MapLayer layer, Array<LevelData.ObjectRecord> records, Array<TextureRegion> regions) {
+        assertEquals("objects", layer.getObjects().getCount(), records.size);
+        assertEquals("object regions", records.size, regions.size);
+        for (int i = 0; i < records.size; i++) {
+            TiledMapTileMapObject object = (TiledMapTileMapObject) layer.getObjects().get(i);
+            MapProperties props = object.getProperties();
+            LevelData.ObjectRecord record = records.get(i);
+            String where = "object " + i;
+
+            float h = (Float) props.get("height");
+            assertEquals(where + " type", LevelObject.valueOf((String) props.get("type")), record.type);
+            assertEquals(where + " x", (Float) props.get("x"), record.x, 0f);
+            assertEquals(where + " y", (Float) props.get("y") + h, record.y, 0f);
+            assertEquals(where + " width", (Float) props.get("width"), record.width, 0f);
+            assertEquals(where + " height", h, record.height, 0f);
+            assertEquals(where + " rotation", object.getRotation() * -1, record.rotation, 0f);
+            assertEquals(where + " flip x", object.isFlipHorizontally(), record.isFlipHorizontally());
+            assertEquals(where + " flip y", object.isFlipVertically(), record.isFlipVertically());
+            assertEquals(where + " group", props.get("group"), record.group);
+            assertEquals(where + " triggered by", props.get("triggeredByRopeGroup"), record.triggeredBy);
+            if (record.type == LevelObject.door) {
+                assertEquals(where + " open rotation", -Float.parseFloat((String) props.get("openRotation")),
+                             record.openRotation, 0f);
+            }
+            assertRegion(where, object.getTextureRegion(), regions.get(i));
+        }
+    }
+
+}
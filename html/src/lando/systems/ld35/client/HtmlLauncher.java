@@ -5,10 +5,16 @@ import com.badlogic.gdx.backends.gwt.GwtApplication;
 import com.badlogic.gdx.backends.gwt.GwtApplicationConfiguration;
 import lando.systems.ld35.ActionResolver;
 import lando.systems.ld35.LudumDare35;
+import lando.systems.ld35.ParticleSystem.DustEmitter;
+import lando.systems.ld35.ParticleSystem.ParticleManager;
+import lando.systems.ld35.gameobjects.LevelCache;
 import lando.systems.ld35.screens.AttractScreen;
 import lando.systems.ld35.screens.GameScreen;
 import lando.systems.ld35.screens.MenuScreen;
 import lando.systems.ld35.utils.Config;
+import lando.systems.ld35.utils.QualityGovernor;
+import lando.systems.ld35.utils.SerialTaskRunner;
+import lando.systems.ld35.utils.TaskRunner;
 
 public class HtmlLauncher extends GwtApplication implements ActionResolver{
     public boolean fullScreen = false;
@@ -25,6 +31,13 @@ public class HtmlLauncher extends GwtApplication implements ActionResolver{
     public boolean playMusic = true;
     public boolean showDebug = false;
     public boolean unlockAll = false;
+    public int tickRate = LudumDare35.DEFAULT_TICK_RATE;
+    public int maxTicksPerFrame = LudumDare35.DEFAULT_MAX_TICKS_PER_FRAME;
+    public int targetFrameRate = LudumDare35.DEFAULT_TARGET_FRAME_RATE;
+    public float minQuality = QualityGovernor.DEFAULT_MIN_QUALITY;
+    public float maxQuality = QualityGovernor.DEFAULT_MAX_QUALITY;
+    public int minTickRate = LudumDare35.DEFAULT_TICK_RATE;
+    public int levelCacheSize = LevelCache.DEFAULT_SIZE_KB;
 
     @Override
     public GwtApplicationConfiguration getConfig () {
@@ -106,4 +119,54 @@ public class HtmlLauncher extends GwtApplication implements ActionResolver{
         return unlockAll;
     }
 
-}
\ No newline at end of file
+    @Override
+    public int tickRate() {
+        return tickRate;
+    }
+
+    @Override
+    public int maxTicksPerFrame() {
+        return maxTicksPerFrame;
+    }
+
+    @Override
+    public int targetFrameRate() {
+        return targetFrameRate;
+    }
+
+    @Override
+    public float minQuality() {
+        return minQuality;
+    }
+
+    @Override
+    public float maxQuality() {
+        return maxQuality;
+    }
+
+    @Override
+    public int minTickRate() {
+        return minTickRate;
+    }
+
+    @Override
+    public int levelCacheSize() {
+        return levelCacheSize;
+    }
+
+    @Override
+    public TaskRunner taskRunner() {
+        return SerialTaskRunner.INSTANCE;
+    }
+
+    @Override
+    public int particleThreshold() {
+        return ParticleManager.PARALLEL_THRESHOLD;
+    }
+
+    @Override
+    public int dustThreshold() {
+        return DustEmitter.PARALLEL_THRESHOLD;
+    }
+
+}